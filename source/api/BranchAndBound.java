@@ -0,0 +1,72 @@
+package api;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Defines an optimization problem to be solved by branch-and-bound
+ * ({@link tasks.BranchAndBoundTask BranchAndBoundTask}). The problem supplies
+ * the search tree, the bound of a node and the objective value of a solution.
+ * The compute space takes care of sharing the best solution found so far
+ * ({@link system.Incumbent Incumbent}) and of pruning nodes that cannot beat
+ * it.
+ * 
+ * Problems are shipped to computers together with the tasks, so they should
+ * hold only the input of the problem.
+ * 
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ * 
+ * @param <N>
+ *            Type of the nodes of the search tree. Complete nodes are
+ *            solutions.
+ */
+public interface BranchAndBound<N extends Serializable> extends Serializable {
+
+	/**
+	 * 
+	 * @return true if smaller objective values are better, false if larger
+	 *         ones are
+	 */
+	boolean isMinimization();
+
+	/**
+	 * 
+	 * @return Largest number of children of a node
+	 */
+	int getBranchingFactor();
+
+	/**
+	 * 
+	 * @param node
+	 *            A node that is not complete
+	 * @return Children of the node. A node without children is a dead end.
+	 */
+	List<N> expand(N node);
+
+	/**
+	 * 
+	 * @param node
+	 *            A node of the search tree
+	 * @return Optimistic bound on the objective values of all solutions below
+	 *         the node: a lower bound when minimizing, an upper bound when
+	 *         maximizing
+	 */
+	double getBound(N node);
+
+	/**
+	 * 
+	 * @param node
+	 *            A node of the search tree
+	 * @return true if the node is a solution
+	 */
+	boolean isComplete(N node);
+
+	/**
+	 * 
+	 * @param node
+	 *            A complete node
+	 * @return Objective value of the solution
+	 */
+	double getObjective(N node);
+}
@@ -2,6 +2,7 @@ package api;
 
 import java.nio.ReadOnlyBufferException;
 import java.rmi.RemoteException;
+import java.util.List;
 
 import system.Shared;
 
@@ -53,6 +54,78 @@ public interface Client2Space extends java.rmi.Remote {
 	Result<?> compute(Task<?> task, Shared<?> shared)
 			throws java.rmi.RemoteException;
 
+	/**
+	 * Same as {@link #compute(Task, Shared)}, except that the computation is
+	 * given a time budget. Once most of the budget is spent, tasks stop
+	 * splitting. If the computation has not finished when the budget runs
+	 * out, it is abandoned, and the best solution known by then is returned
+	 * in a {@link api.Result Result} marked as approximate
+	 * ({@link api.Result#isApproximate()}). The best solution is taken from
+	 * the shared object if it is a {@link system.Incumbent Incumbent}
+	 * carrying one; otherwise the value of the result is null.
+	 * 
+	 * @param task
+	 *            task to be added to the Compute Space
+	 * @param shared
+	 *            Shared object to be used to broadcast messages across workers
+	 *            in the compute space for this task
+	 * @param timeBudget
+	 *            Time (in milliseconds) after which the best solution known
+	 *            is returned, or 0 for no limit
+	 * @return Result of the computation, or an approximate result if it ran
+	 *         out of time
+	 * @throws java.rmi.RemoteException
+	 */
+	Result<?> compute(Task<?> task, Shared<?> shared, long timeBudget)
+			throws java.rmi.RemoteException;
+
+	/**
+	 * Starts a stream of independent tasks, which the client submits a few at
+	 * a time ({@link #submit(List)}) and whose results are returned as soon as
+	 * each of them is computed ({@link #takeResults(int)}). Every task of the
+	 * stream is the root of a computation of its own, so that no task has to
+	 * compose the values of all others. Tasks of a stream started earlier are
+	 * forgotten, and their results are discarded.
+	 *
+	 * All tasks of the stream share the given shared object. Tasks that prune
+	 * against an incumbent should only be streamed together if one incumbent
+	 * holds for all of them.
+	 *
+	 * @param shared
+	 *            Shared object to be used to broadcast messages across workers
+	 *            in the compute space for the tasks of the stream
+	 * @throws RemoteException
+	 */
+	void beginStream(Shared<?> shared) throws RemoteException;
+
+	/**
+	 * Adds tasks to the stream. The compute space holds a bounded number of
+	 * tasks of the stream, counting both the tasks being computed and those
+	 * whose results the client has not taken yet. Tasks beyond that number are
+	 * not accepted, and have to be submitted again once results have been
+	 * taken.
+	 *
+	 * @param tasks
+	 *            Tasks to be added to the stream
+	 * @return IDs given to the tasks that were accepted, which are the first
+	 *         tasks of the list (possibly none). The results of the tasks
+	 *         carry the same IDs.
+	 * @throws RemoteException
+	 */
+	List<String> submit(List<Task<?>> tasks) throws RemoteException;
+
+	/**
+	 * Blocks until results of tasks of the stream are available, and returns
+	 * them in the order in which they were computed
+	 *
+	 * @param maxResults
+	 *            Maximum number of results to be returned
+	 * @return Results of tasks of the stream, or none if the compute space
+	 *         holds no task of the stream
+	 * @throws RemoteException
+	 */
+	List<Result<?>> takeResults(int maxResults) throws RemoteException;
+
 	/**
 	 * Allows the client to switch on/off latency optimization. If turned on,
 	 * then the compute space tries to mitigate RMI overhead due to
@@ -0,0 +1,25 @@
+package api;
+
+/**
+ * Implemented by tasks whose subtasks' values are folded into a single value
+ * as soon as they arrive, instead of being kept until all of them are known.
+ * The 'Conquer' phase then receives only the folded value.
+ * 
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+public interface Foldable<T> {
+
+	/**
+	 * Combines two values of subtasks. The combination must be associative,
+	 * and the 'Conquer' phase must give the same value for the folded value
+	 * alone as for all the values it was folded from.
+	 * 
+	 * @param accumulated
+	 *            Values of the subtasks folded so far
+	 * @param value
+	 *            Value of a subtask that has just arrived
+	 * @return Both values folded into one
+	 */
+	T fold(T accumulated, T value);
+}
@@ -0,0 +1,34 @@
+package api;
+
+/**
+ * Implemented by tasks whose values are ints, so that the values of their
+ * subtasks are folded as ints on their way from the computers to the
+ * 'Conquer' phase, without being boxed. Values arrive as ints in
+ * {@link system.IntResult IntResult} objects; values that arrive boxed are
+ * folded the same way.
+ * 
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+public interface IntFoldable {
+
+	/**
+	 * Combines two values of subtasks. The combination must be associative.
+	 * 
+	 * @param accumulated
+	 *            Values of the subtasks folded so far
+	 * @param value
+	 *            Value of a subtask that has just arrived
+	 * @return Both values folded into one
+	 */
+	int fold(int accumulated, int value);
+
+	/**
+	 * Used instead of {@link api.Task#putValues(java.util.List)} once the
+	 * values of all subtasks have been folded
+	 * 
+	 * @param folded
+	 *            Values of all subtasks, folded into one
+	 */
+	void putIntValue(int folded);
+}
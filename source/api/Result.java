@@ -36,6 +36,18 @@ public interface Result<T> {
 
 	void setSubTasks(List<Task<T>> subTasks);
 
+	/**
+	 * @return Returns the generator of the sub tasks, if the underlying
+	 *         computation generates them lazily (null otherwise)
+	 */
+	SubTaskGenerator<T> getSubTaskGenerator();
+
+	/**
+	 * Sets a generator of sub tasks, which are then built lazily instead of
+	 * being set with {@link #setSubTasks(List)}
+	 */
+	void setSubTaskGenerator(SubTaskGenerator<T> generator);
+
 	/**
 	 * @return Returns the ID of task responsible for the underlying computation
 	 */
@@ -47,4 +59,28 @@ public interface Result<T> {
 	 */
 	String getParentId();
 
+	/**
+	 * @return Returns the time (in nanoseconds) the computer took to execute
+	 *         the task responsible for the underlying computation, or 0 if it
+	 *         was not measured
+	 */
+	long getExecutionTime();
+
+	/**
+	 * Sets the time (in nanoseconds) the computer took to execute the task
+	 */
+	void setExecutionTime(long executionTime);
+
+	/**
+	 * @return true if the computation ran out of time and the value is only
+	 *         the best one known when it did, e.g. the incumbent of a
+	 *         branch-and-bound computation
+	 */
+	boolean isApproximate();
+
+	/**
+	 * Marks the value as approximate
+	 */
+	void setApproximate(boolean approximate);
+
 }
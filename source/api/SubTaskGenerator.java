@@ -0,0 +1,40 @@
+package api;
+
+/**
+ * Generates the subtasks of a task one at a time, when they are needed,
+ * instead of all at once. A task returns a generator through
+ * {@link api.Result#setSubTaskGenerator(SubTaskGenerator)}. A computer
+ * composing the task locally builds each subtask only when a worker is ready
+ * to execute it, so that subtasks which can be pruned by then are never
+ * built. Subtasks that have to leave the computer are all built at that time.
+ * 
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+public interface SubTaskGenerator<T> {
+
+	/**
+	 * 
+	 * @return Number of subtasks, including those that turn out to be pruned
+	 */
+	int size();
+
+	/**
+	 * 
+	 * @param index
+	 *            Position of a subtask, from 0 to size() - 1
+	 * @return ID of the subtask at the given position
+	 */
+	String getChildId(int index);
+
+	/**
+	 * Builds the subtask at the given position. Each position is built at
+	 * most once.
+	 * 
+	 * @param index
+	 *            Position of a subtask, from 0 to size() - 1
+	 * @return The subtask, or null if it can be pruned. The value of a pruned
+	 *         subtask is null.
+	 */
+	Task<T> generate(int index);
+}
@@ -217,7 +217,9 @@ public interface Task<T> {
 	/**
 	 * 
 	 * @return Unique IDs of all child tasks generated by this task at the end
-	 *         of the DECOMPOSE ('Divide') phase
+	 *         of the DECOMPOSE ('Divide') phase. Child IDs are unique across
+	 *         all tasks descending from the same root, and across roots
+	 *         streamed together ({@link api.Client2Space#submit(List)}).
 	 */
 	List<String> getChildIds();
 
@@ -263,6 +265,24 @@ public interface Task<T> {
 	 */
 	Computer getComputer();
 
+	/**
+	 * Sets the computer holding the successor of the parent of this task.
+	 * The value of this task is sent straight to that computer instead of
+	 * the compute space.
+	 * 
+	 * @param parentHost
+	 *            Computer holding the successor of the parent task, or null if
+	 *            the successor is held by the compute space
+	 */
+	void setParentHost(Computer parentHost);
+
+	/**
+	 * 
+	 * @return Computer holding the successor of the parent task, or null if
+	 *         the successor is held by the compute space
+	 */
+	Computer getParentHost();
+
 	/**
 	 * 
 	 * @param values
@@ -280,4 +300,87 @@ public interface Task<T> {
 	 */
 
 	List<T> getValues();
+
+	/**
+	 * 
+	 * @return true if the 'Conquer' phase of this task is cheap enough (e.g.
+	 *         adding or comparing the values of its children) to be executed
+	 *         by the {@link api.Client2Space Space} itself, instead of being
+	 *         dispatched to a computer
+	 */
+	boolean hasCheapCompose();
+
+	/**
+	 * 
+	 * @return true if executing this task takes so little time that the
+	 *         {@link api.Client2Space Space} should dispatch it to a computer
+	 *         in a bundle with other fine-grained tasks, instead of on its own
+	 */
+	boolean isFineGrained();
+
+	/**
+	 * Used by a task in its 'Divide' phase to decide at runtime whether to
+	 * split into subtasks or to compute its value sequentially. The decision
+	 * is taken by the computer executing the task, based on how long tasks of
+	 * the same type took, the overhead of dispatching a task and the idle
+	 * capacity of the computers ({@link system.GranularityController}).
+	 * 
+	 * @return true if this task should split into subtasks
+	 */
+	boolean shouldSplit();
+
+	/**
+	 * Used by a long-running task to check periodically whether it should
+	 * stop and hand the unexplored parts of its work back as subtasks, so
+	 * that idle computers or workers can take them over
+	 * 
+	 * @return true if the computer executing the task, or the
+	 *         {@link api.Client2Space Space}, has idle capacity
+	 */
+	boolean shouldDonate();
+
+	/**
+	 * Used by a {@link system.Successor Successor} to keep only what the
+	 * 'Conquer' phase of this task needs while its subtasks are computed. The
+	 * state used only by the 'Divide' phase can then be garbage collected.
+	 * 
+	 * Values of the subtasks are put into the continuation, never into this
+	 * task, so that a task handed to a computer in the JVM of the compute
+	 * space is never changed by its execution.
+	 * 
+	 * @return A new task whose 'Conquer' phase gives the same value as that
+	 *         of this task
+	 */
+	Task<T> getContinuation();
+
+	/**
+	 * Used by the {@link api.Client2Space Space} to compute each distinct
+	 * subproblem only once. A task whose key equals that of a task of the
+	 * same class already known to the Space is not scheduled, and receives
+	 * the value of that task instead. The subproblem of a task must not
+	 * depend on itself.
+	 * 
+	 * Results are also cached across computations
+	 * ({@link system.ResultCache}), so a key must be derived from the inputs
+	 * of the task alone. Tasks whose values depend on shared objects must not
+	 * have keys.
+	 * 
+	 * @return Key identifying the subproblem solved by this task, or null if
+	 *         the task is not to be matched with others
+	 */
+	Object getSubproblemKey();
+
+	/**
+	 * Used by the {@link api.Client2Space Space} before dispatching a task,
+	 * and by computers before executing it, to discard tasks that can no
+	 * longer contribute to the value of the computation (e.g. a
+	 * branch-and-bound node whose bound cannot beat the shared incumbent). A
+	 * discarded task is not executed; the value of its parent receives null in
+	 * its place. The check runs on every queued task, so it must be cheap.
+	 * 
+	 * @param shared
+	 *            Latest shared object of the computation
+	 * @return true if the task can be discarded
+	 */
+	boolean isPrunable(Shared<?> shared);
 }
\ No newline at end of file
@@ -13,6 +13,9 @@ import api.Client2Space;
  */
 public abstract class Job {
 
+	private long timeBudget;
+	private boolean approximate;
+
 	/**
 	 * Executes the job in a compute space represented internally by a
 	 * {@link api.Task Task} object. Collects the result returned by the compute
@@ -37,4 +40,43 @@ public abstract class Job {
 	 */
 	public abstract Object getAllResults();
 
+	/**
+	 * 
+	 * @param timeBudget
+	 *            Time (in milliseconds) after which the compute space returns
+	 *            the best solution known, or 0 for no limit. Jobs that cannot
+	 *            make use of a partial solution ignore it.
+	 */
+	public void setTimeBudget(long timeBudget) {
+		this.timeBudget = timeBudget;
+	}
+
+	/**
+	 * 
+	 * @return Time (in milliseconds) after which the compute space returns
+	 *         the best solution known, or 0 for no limit
+	 */
+	public long getTimeBudget() {
+		return this.timeBudget;
+	}
+
+	/**
+	 * 
+	 * @return true if the job ran out of time and its results are only the
+	 *         best known when it did
+	 */
+	public boolean isApproximate() {
+		return this.approximate;
+	}
+
+	/**
+	 * 
+	 * @param approximate
+	 *            true if the results are only the best known when the job ran
+	 *            out of time
+	 */
+	protected void setApproximate(boolean approximate) {
+		this.approximate = approximate;
+	}
+
 }
@@ -0,0 +1,72 @@
+package client;
+
+import java.net.MalformedURLException;
+import java.rmi.Naming;
+import java.rmi.NotBoundException;
+import java.rmi.RemoteException;
+import java.util.Arrays;
+import java.util.Random;
+
+import api.Client2Space;
+
+/**
+ * Solves a randomly generated 0/1 knapsack problem on a remote machine and
+ * displays the items taken on the console. A time budget (in milliseconds)
+ * can be set with the system property <code>client.budget</code>.
+ * 
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+public class KnapsackClient {
+
+	private static final int N_ITEMS = 40;
+	private static final long SEED = 290;
+	private static final long TIME_BUDGET = Long.getLong("client.budget", 0);
+
+	public static void main(String[] args) {
+
+		String computeSpaceServer = args[0];
+
+		Random random = new Random(SEED);
+		double[] weights = new double[N_ITEMS];
+		double[] values = new double[N_ITEMS];
+		double capacity = 0;
+		for (int i = 0; i < N_ITEMS; i++) {
+			weights[i] = 10 + random.nextInt(90);
+			values[i] = weights[i] + random.nextInt(20);
+			capacity += weights[i];
+		}
+		capacity /= 2;
+
+		KnapsackJob job = new KnapsackJob(weights, values, capacity);
+		job.setTimeBudget(TIME_BUDGET);
+		if (System.getSecurityManager() == null) {
+			System.setSecurityManager(new SecurityManager());
+		}
+
+		try {
+			long startTime = System.currentTimeMillis();
+			Client2Space space = (Client2Space) Naming.lookup("//"
+					+ computeSpaceServer + "/" + Client2Space.SERVICE_NAME);
+			System.out.println("Solving knapsack problem with " + N_ITEMS
+					+ " items, capacity " + capacity);
+			// ------Generate tasks and execute them remotely
+			job.executeJob(space);
+			int[] items = job.getAllResults();
+			// -------------------------------------
+
+			System.out.println("Items taken : " + Arrays.toString(items));
+			System.out.println("Total value : " + job.getValue()
+					+ (job.isApproximate() ? " (best found within time budget)"
+							: ""));
+			System.out.println("Elapsed Time="
+					+ (System.currentTimeMillis() - startTime));
+		} catch (MalformedURLException e) {
+			e.printStackTrace();
+		} catch (RemoteException e) {
+			e.printStackTrace();
+		} catch (NotBoundException e) {
+			e.printStackTrace();
+		}
+	}
+}
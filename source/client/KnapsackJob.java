@@ -0,0 +1,88 @@
+package client;
+
+import java.rmi.RemoteException;
+import java.util.Arrays;
+
+import system.Incumbent;
+import tasks.BranchAndBoundTask;
+import tasks.KnapsackProblem;
+import tasks.KnapsackProblem.Node;
+import api.Client2Space;
+import api.Result;
+
+/**
+ * Defines a 0/1 knapsack problem through the generic {@link client.Job Job}
+ * interface
+ * 
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ * 
+ */
+public class KnapsackJob extends Job {
+
+	private KnapsackProblem problem;
+	private int[] items;
+	private double value;
+
+	/**
+	 * 
+	 * @param weights
+	 *            weights[i] is the weight of item i
+	 * @param values
+	 *            values[i] is the value of item i
+	 * @param capacity
+	 *            Largest total weight the knapsack holds
+	 */
+	public KnapsackJob(double[] weights, double[] values, double capacity) {
+		this.problem = new KnapsackProblem(weights, values, capacity);
+	}
+
+	/**
+	 * Solves the knapsack problem remotely in a compute space (
+	 * {@link api.Client2Space Space}) and stores the items taken
+	 * 
+	 * @param space
+	 *            Compute space to which {@link tasks.BranchAndBoundTask
+	 *            BranchAndBoundTask} objects should be sent for execution
+	 * @throws RemoteException
+	 * 
+	 * @see client.Job Job
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public void executeJob(Client2Space space) throws RemoteException {
+		Result<Node> r = (Result<Node>) space.compute(
+				new BranchAndBoundTask<Node>(problem, problem.getRoot()),
+				new Incumbent(problem.isMinimization()), this.getTimeBudget());
+		this.setApproximate(r.isApproximate());
+		Node best = r.getValue();
+		if (best == null) {
+			// No solution was found within the time budget
+			this.items = new int[0];
+			return;
+		}
+		this.items = best.getItems();
+		Arrays.sort(this.items);
+		this.value = best.getValue();
+	}
+
+	/**
+	 * 
+	 * @return Total value of the items taken
+	 */
+	public double getValue() {
+		return this.value;
+	}
+
+	/**
+	 * Returns values cached by {@link #executeJob(Client2Space)
+	 * executeJob(Client2Space space)} method
+	 * 
+	 * @return Indices of the items taken in an optimal solution
+	 * @see client.Job Job
+	 */
+	@Override
+	public int[] getAllResults() {
+		return this.items;
+	}
+}
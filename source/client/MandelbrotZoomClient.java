@@ -0,0 +1,64 @@
+package client;
+
+import java.net.MalformedURLException;
+import java.rmi.Naming;
+import java.rmi.NotBoundException;
+import java.rmi.RemoteException;
+
+import api.Client2Space;
+
+/**
+ * Computes the frames of a zoom into the Mandelbrot Set on a remote machine,
+ * streaming one task per frame, and displays the share of each frame inside
+ * the set on the console. The number of frames can be set with the system
+ * property <code>client.frames</code>.
+ * 
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+public class MandelbrotZoomClient {
+
+	// Input for the Mandelbrot Set zoom
+	private static final double CENTERX = -0.7430;
+	private static final double CENTERY = 0.1318;
+	private static final double EDGE_LENGTH = 0.5;
+	private static final double ZOOM = 0.9;
+	private static final int ITER_LIMIT = 512;
+	private static final int SQUARE_SIZE = 256;
+	private static final int FRAMES = Integer.getInteger("client.frames", 200);
+
+	public static void main(String[] args) {
+
+		String computeSpaceServer = args[0];
+
+		MandelbrotZoomJob job = new MandelbrotZoomJob(CENTERX, CENTERY,
+				EDGE_LENGTH, ZOOM, SQUARE_SIZE, ITER_LIMIT, FRAMES);
+		if (System.getSecurityManager() == null) {
+			System.setSecurityManager(new SecurityManager());
+		}
+
+		try {
+			long startTime = System.currentTimeMillis();
+			Client2Space space = (Client2Space) Naming.lookup("//"
+					+ computeSpaceServer + "/" + Client2Space.SERVICE_NAME);
+			// ------Stream tasks and collect their results
+			job.executeJob(space);
+			int[] insideCounts = job.getAllResults();
+			// -------------------------------------
+
+			for (int frame = 0; frame < insideCounts.length; frame++) {
+				System.out.println("Frame " + frame + " : "
+						+ (100.0 * insideCounts[frame] / (SQUARE_SIZE * SQUARE_SIZE))
+						+ " % inside");
+			}
+			System.out.println("Elapsed Time="
+					+ (System.currentTimeMillis() - startTime));
+		} catch (MalformedURLException e) {
+			e.printStackTrace();
+		} catch (RemoteException e) {
+			e.printStackTrace();
+		} catch (NotBoundException e) {
+			e.printStackTrace();
+		}
+	}
+}
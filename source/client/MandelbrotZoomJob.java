@@ -0,0 +1,106 @@
+package client;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import tasks.MandelbrotSetTask;
+import api.Result;
+import api.Task;
+
+/**
+ * A job that computes the frames of a zoom into the <a
+ * href="http://en.wikipedia.org/wiki/Mandelbrot_set">Mandelbrot Set</a> as a
+ * stream of independent tasks of type {@link tasks.MandelbrotSetTask
+ * MandelbrotSetTask}, one per frame. Only the number of pixels inside the set
+ * is kept for each frame, so that frames are dropped as soon as they arrive.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ *
+ */
+public class MandelbrotZoomJob extends StreamJob {
+
+	private double centerX;
+	private double centerY;
+	private double edgeLength;
+	private double zoom;
+	private int n;
+	private int iterLimit;
+	private int frames;
+	private int nextFrame;
+	private int[] insideCounts;
+	// Frame computed by each task whose result has not arrived yet
+	private Map<Task<?>, Integer> framesOf;
+
+	/**
+	 *
+	 * @param centerX
+	 *            X-coordinate of the point of the complex plane zoomed into
+	 * @param centerY
+	 *            Y-coordinate of the point of the complex plane zoomed into
+	 * @param edgeLength
+	 *            Edge length of the square of the first frame
+	 * @param zoom
+	 *            Ratio between the edge lengths of two consecutive frames
+	 * @param n
+	 *            Square of each frame subdivided into n X n squares, each of
+	 *            which is visualized by 1 pixel
+	 * @param iterLimit
+	 *            Defines when the representative point of a region is
+	 *            considered to be in the Mandelbrot set.
+	 * @param frames
+	 *            Number of frames
+	 */
+	public MandelbrotZoomJob(double centerX, double centerY,
+			double edgeLength, double zoom, int n, int iterLimit, int frames) {
+		this.centerX = centerX;
+		this.centerY = centerY;
+		this.edgeLength = edgeLength;
+		this.zoom = zoom;
+		this.n = n;
+		this.iterLimit = iterLimit;
+		this.frames = frames;
+		this.insideCounts = new int[frames];
+		this.framesOf = new IdentityHashMap<Task<?>, Integer>();
+	}
+
+	@Override
+	protected Task<?> nextTask() {
+		if (nextFrame == frames) {
+			return null;
+		}
+		double edge = edgeLength * Math.pow(zoom, nextFrame);
+		Task<?> task = new MandelbrotSetTask(centerX - edge / 2, centerY
+				- edge / 2, edge, n, iterLimit);
+		framesOf.put(task, nextFrame++);
+		return task;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	protected void processResult(Task<?> task, Result<?> result) {
+		int[][] values = ((Result<MandelbrotSetTask.MandelbrotSetTaskResult>) result)
+				.getValue().getValues();
+		int inside = 0;
+		for (int[] column : values) {
+			for (int value : column) {
+				if (value == iterLimit) {
+					inside++;
+				}
+			}
+		}
+		insideCounts[framesOf.remove(task)] = inside;
+	}
+
+	/**
+	 * Returns values cached by {@link #executeJob(api.Client2Space)
+	 * executeJob(Client2Space)} method
+	 *
+	 * @return Number of pixels inside the Mandelbrot Set, for each frame
+	 * @see client.Job Job
+	 */
+	@Override
+	public int[] getAllResults() {
+		return this.insideCounts;
+	}
+}
@@ -0,0 +1,105 @@
+package client;
+
+import java.rmi.RemoteException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+
+import system.Shared;
+import api.Client2Space;
+import api.Result;
+import api.Task;
+
+/**
+ * A job made up of a stream of independent tasks, such as the frames of an
+ * animation or a batch of problem instances. Tasks are generated one at a
+ * time by the subclass, streamed to the compute space
+ * ({@link api.Client2Space#submit(List)}), and their results are handed back
+ * to the subclass as soon as they are computed. Neither side holds the whole
+ * stream: the client holds the tasks whose results have not come back yet,
+ * and the compute space accepts only as many tasks as its window allows.
+ *
+ * The number of tasks generated and results taken at a time can be set with
+ * the system property <code>client.stream.batch</code>.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ *
+ */
+public abstract class StreamJob extends Job {
+
+	private static final int BATCH_SIZE = Integer.getInteger(
+			"client.stream.batch", 64);
+
+	/**
+	 *
+	 * @return Next task of the stream, or null once the stream is over
+	 */
+	protected abstract Task<?> nextTask();
+
+	/**
+	 * Handles the result of a task of the stream. Results come back in the
+	 * order in which they were computed, which need not be the order of the
+	 * tasks.
+	 *
+	 * @param task
+	 *            Task as returned by {@link #nextTask()}
+	 * @param result
+	 *            Result of the task
+	 */
+	protected abstract void processResult(Task<?> task, Result<?> result);
+
+	/**
+	 *
+	 * @return Shared object for all tasks of the stream, null by default
+	 */
+	protected Shared<?> getShared() {
+		return null;
+	}
+
+	/**
+	 * Streams all tasks to the compute space and processes their results
+	 * until the results of all tasks have been processed
+	 *
+	 * @param space
+	 *            Compute space to which the tasks of the stream should be sent
+	 *            for execution
+	 * @throws RemoteException
+	 * @see client.Job Job
+	 */
+	@Override
+	public void executeJob(Client2Space space) throws RemoteException {
+		space.beginStream(this.getShared());
+		Map<String, Task<?>> inFlight = new HashMap<String, Task<?>>();
+		List<Task<?>> batch = new Vector<Task<?>>();
+		boolean exhausted = false;
+		while (true) {
+			while (!exhausted && batch.size() < BATCH_SIZE) {
+				Task<?> task = this.nextTask();
+				if (task == null) {
+					exhausted = true;
+				} else {
+					batch.add(task);
+				}
+			}
+			if (!batch.isEmpty()) {
+				List<String> ids = space.submit(batch);
+				for (int i = 0; i < ids.size(); i++) {
+					inFlight.put(ids.get(i), batch.get(i));
+				}
+				batch.subList(0, ids.size()).clear();
+			}
+			if (inFlight.isEmpty() && batch.isEmpty()) {
+				return;
+			}
+			// Waits for results only while tasks are being computed
+			for (Result<?> r : space.takeResults(BATCH_SIZE)) {
+				Task<?> task = inFlight.remove(r.getId());
+				if (task != null) {
+					this.processResult(task, r);
+				}
+			}
+		}
+	}
+}
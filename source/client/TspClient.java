@@ -24,7 +24,9 @@ import api.Client2Space;
 
 /**
  * Computes an optimal solution to the Travelling Salesman Problem on a remote
- * machine and displays the solution in a GUI.
+ * machine and displays the solution in a GUI. A time budget (in milliseconds)
+ * can be set with the system property <code>client.budget</code>, in which
+ * case the best tour found within it is displayed.
  * 
  * @author Manasa Chandrasekhar
  * @author Kowshik Prakasam
@@ -33,6 +35,8 @@ public class TspClient {
 
 	private static final String LOG_FILE = "/cs/student/kowshik/tsp_client.log";
 
+	private static final long TIME_BUDGET = Long.getLong("client.budget", 0);
+
 	// Size of JFrame displayed on the screen
 	private static int N_PIXELS = 500;
 
@@ -51,6 +55,7 @@ public class TspClient {
 
 		String computeSpaceServer = args[0];
 		TspJob job = new TspJob(CITIES);
+		job.setTimeBudget(TIME_BUDGET);
 		if (System.getSecurityManager() == null) {
 			System.setSecurityManager(new SecurityManager());
 		}
@@ -70,13 +75,19 @@ public class TspClient {
 			job.executeJob(space);
 			int[] tour = job.getAllResults();
 			// -------------------------------------
+			if (tour.length == 0) {
+				System.out.println("\n\nNo tour found within the time budget\n");
+				return;
+			}
 
 			String tourStr = "[ " + tour[0];
 			for (int index = 1; index < tour.length; index++) {
 				tourStr += ", " + tour[index];
 			}
 			tourStr += " ]";
-			System.out.println("\n\nMinimum cost cycle : " + tourStr + "\n");
+			System.out.println("\n\n"
+					+ (job.isApproximate() ? "Best cycle within time budget : "
+							: "Minimum cost cycle : ") + tourStr + "\n");
 			JLabel euclideanTspLabel = displayEuclideanTspTaskReturnValue(
 					CITIES, tour);
 
@@ -70,8 +70,15 @@ public class TspJob extends Job {
 	public void executeJob(Client2Space space) throws RemoteException {
 		this.startTime = System.currentTimeMillis();
 		Shared<Double> tspSharedObj=new TspShared(TspShared.INFINITY);
-		Result<List<City>> r = (Result<List<City>>) space.compute(new TspTask(cities),tspSharedObj);
+		Result<List<City>> r = (Result<List<City>>) space.compute(new TspTask(cities),tspSharedObj, this.getTimeBudget());
 		logger.info("Elapsed Time=" + (System.currentTimeMillis() - startTime));
+		this.setApproximate(r.isApproximate());
+		if (r.getValue() == null) {
+			// No tour was found within the time budget
+			this.minRoute = new int[0];
+			this.handler.close();
+			return;
+		}
 		this.minRoute = new int[r.getValue().size()];
 		int index = 0;
 		for (City c : r.getValue()) {
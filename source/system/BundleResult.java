@@ -0,0 +1,111 @@
+package system;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Vector;
+
+import api.Result;
+import api.SubTaskGenerator;
+import api.Task;
+
+/**
+ * Results of the tasks of a {@link system.TaskBundle TaskBundle}, returned to
+ * the compute space as a single result. The compute space unpacks the bundle
+ * and handles each result as if its task had been dispatched on its own.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ *
+ */
+public class BundleResult implements Result<Object>, Serializable {
+
+	private static final long serialVersionUID = -3391786028146707552L;
+
+	private String id;
+	private List<Result<?>> results;
+	private long executionTime;
+
+	/**
+	 *
+	 * @param id
+	 *            ID of the first task of the bundle. Sharded compute spaces
+	 *            use it to route the bundle to the shard that dispatched it.
+	 */
+	public BundleResult(String id) {
+		this.id = id;
+		this.results = new Vector<Result<?>>();
+	}
+
+	/**
+	 *
+	 * @param result
+	 *            Result of a task of the bundle
+	 */
+	public void add(Result<?> result) {
+		results.add(result);
+	}
+
+	/**
+	 *
+	 * @return Results of the tasks of the bundle
+	 */
+	public List<Result<?>> getResults() {
+		return results;
+	}
+
+	@Override
+	public Object getValue() {
+		return null;
+	}
+
+	@Override
+	public List<Task<Object>> getSubTasks() {
+		return null;
+	}
+
+	@Override
+	public void setValue(Object value) {
+	}
+
+	@Override
+	public void setSubTasks(List<Task<Object>> subTasks) {
+	}
+
+	@Override
+	public SubTaskGenerator<Object> getSubTaskGenerator() {
+		return null;
+	}
+
+	@Override
+	public void setSubTaskGenerator(SubTaskGenerator<Object> generator) {
+	}
+
+	@Override
+	public long getExecutionTime() {
+		return executionTime;
+	}
+
+	@Override
+	public void setExecutionTime(long executionTime) {
+		this.executionTime = executionTime;
+	}
+
+	@Override
+	public boolean isApproximate() {
+		return false;
+	}
+
+	@Override
+	public void setApproximate(boolean approximate) {
+	}
+
+	@Override
+	public String getId() {
+		return id;
+	}
+
+	@Override
+	public String getParentId() {
+		return id;
+	}
+}
@@ -0,0 +1,144 @@
+package system;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import api.Result;
+import api.Task;
+
+/**
+ * Executes cheap Conquer phases inside the compute space, instead of
+ * dispatching them to a computer. A Conquer phase is executed here if its
+ * task declares a cheap compose ({@link api.Task#hasCheapCompose()}), unless
+ * the Conquer phases of the same type of task turn out to take longer than
+ * {@link #MAX_COMPOSE_TIME} milliseconds on average.
+ *
+ * Conquer phases run on a fork/join pool with one thread per processor, and
+ * their results are handed back to the compute space exactly like results
+ * of computers. A Conquer phase that fails here is dispatched to a computer
+ * instead, as are all later Conquer phases of the same type of task.
+ *
+ * The compute space only runs a compose executor while it holds the
+ * successors of the tasks, i.e. when results are not forwarded among
+ * computers (<code>space.forwarding=false</code>, or a journaled space).
+ * Computers holding successors compose their tasks themselves.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ *
+ */
+public class ComposeExecutor {
+
+	// Mean duration (in milliseconds) above which composes are dispatched
+	private static final long MAX_COMPOSE_TIME = Long.getLong(
+			"space.compose.maxMillis", 5);
+
+	private SpaceImpl space;
+	private ForkJoinPool pool;
+	private TaskTimer timer;
+	private Map<String, Task<?>> pendingTasks;
+	// Types of task whose Conquer phase failed here
+	private Set<Class<?>> failedTypes;
+
+	/**
+	 *
+	 * @param space
+	 *            Compute space receiving the results of the Conquer phases
+	 */
+	public ComposeExecutor(SpaceImpl space) {
+		this.space = space;
+		/*
+		 * Under a security manager, the default worker threads run without
+		 * permissions, so they could not deliver values to remote objects
+		 */
+		this.pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+				new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+					@Override
+					public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+						return new ForkJoinWorkerThread(pool) {
+						};
+					}
+				}, null, false);
+		this.timer = new TaskTimer();
+		this.pendingTasks = new HashMap<String, Task<?>>();
+		this.failedTypes = new HashSet<Class<?>>();
+	}
+
+	/**
+	 *
+	 * @param task
+	 *            Task that has become ready
+	 * @return true if the Conquer phase of the task is cheap enough to be
+	 *         executed by the compute space
+	 */
+	public boolean accepts(Task<?> task) {
+		if (task.getStatus() != Task.Status.COMPOSE || !task.hasCheapCompose()) {
+			return false;
+		}
+		synchronized (this) {
+			if (failedTypes.contains(task.getClass())) {
+				return false;
+			}
+		}
+		long expected = timer.getExpectedDuration(task);
+		return expected < 0 || expected <= MAX_COMPOSE_TIME;
+	}
+
+	/**
+	 * Executes the Conquer phase of a task asynchronously
+	 *
+	 * @param task
+	 *            Task whose children have all reported their values
+	 */
+	public void submit(final Task<?> task) {
+		synchronized (this) {
+			pendingTasks.put(task.getId(), task);
+		}
+		pool.execute(new Runnable() {
+			@Override
+			public void run() {
+				long start = System.currentTimeMillis();
+				Result<?> result;
+				try {
+					result = task.execute();
+				} catch (Throwable e) {
+					System.err.println("ComposeExecutor -> Conquer phase of "
+							+ task.getId() + " failed, dispatching it : " + e);
+					synchronized (ComposeExecutor.this) {
+						failedTypes.add(task.getClass());
+					}
+					forget(task);
+					space.enqueue(task);
+					return;
+				}
+				timer.record(task, System.currentTimeMillis() - start);
+				space.composed(task, result);
+			}
+		});
+	}
+
+	/**
+	 * Used by the compute space once the result of a Conquer phase has been
+	 * accepted
+	 *
+	 * @param task
+	 *            Task whose Conquer phase has completed
+	 */
+	public synchronized void forget(Task<?> task) {
+		pendingTasks.remove(task.getId());
+	}
+
+	/**
+	 *
+	 * @return Tasks whose Conquer phase has not completed yet
+	 */
+	public synchronized List<Task<?>> getPendingTasks() {
+		return new Vector<Task<?>>(pendingTasks.values());
+	}
+}
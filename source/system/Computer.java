@@ -1,8 +1,10 @@
 package system;
 
+import java.rmi.MarshalledObject;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
 import java.util.List;
+import java.util.Map;
 
 import api.Result;
 import api.Task;
@@ -28,6 +30,17 @@ public interface Computer extends Remote {
 	 */
 	void addTasks(List<Task<?>> listOfTasks) throws RemoteException;
 
+	/**
+	 * Used by the compute space to add a batch of tasks that has already been
+	 * serialized by the space to the computer's local task queue
+	 * 
+	 * @param batch
+	 *            Serialized list of tasks
+	 * @throws RemoteException
+	 */
+	void addTaskBatch(MarshalledObject<List<Task<?>>> batch)
+			throws RemoteException;
+
 	/**
 	 * Sends a new value of the shared object to the compute space
 	 * 
@@ -81,6 +94,130 @@ public interface Computer extends Remote {
 
 	void sendResults(Result<?> result) throws RemoteException;
 
+	/**
+	 * Removes tasks from the internal task queue before they start executing.
+	 * Tasks that are already executing are not affected.
+	 * 
+	 * @param taskIds
+	 *            IDs of tasks to be removed
+	 * @return IDs of tasks that were actually removed from the queue
+	 * @throws RemoteException
+	 */
+	List<String> cancelTasks(List<String> taskIds) throws RemoteException;
+
+	/**
+	 * Used by the compute space when it abandons a computation whose time
+	 * budget is spent. All queued tasks are dropped, the successors held by
+	 * the computer are forgotten, and the results of tasks that are still
+	 * executing are discarded once they finish.
+	 * 
+	 * @throws RemoteException
+	 */
+	void abandonJob() throws RemoteException;
+
+	/**
+	 * Used by the compute space to slow down decomposition while it is under
+	 * memory pressure. In sequential mode, tasks are executed along with all
+	 * their subtasks and only their final values are returned to the space.
+	 * 
+	 * @param sequentialMode
+	 *            true to execute tasks sequentially, false to return subtasks
+	 *            to the space as usual
+	 * @throws RemoteException
+	 */
+	void setSequentialMode(boolean sequentialMode) throws RemoteException;
+
+	/**
+	 * Used by a sharded compute space to let the computer know about all
+	 * shards. The computer registers with every shard and sends each result
+	 * to the shard that owns the task which produced it.
+	 * 
+	 * @param ring
+	 *            Ring assigning tasks to shards
+	 * @param spaces
+	 *            All shards, by name
+	 * @throws RemoteException
+	 */
+	void setShards(ShardRing ring, Map<String, Computer2Space> spaces)
+			throws RemoteException;
+
+	/**
+	 * Used by the compute space to let computers hold the successors of the
+	 * tasks they decompose. Subtasks then carry a reference to the computer
+	 * holding the successor of their parent, and their values are sent
+	 * straight to that computer. The compute space only receives the IDs of
+	 * completed tasks.
+	 * 
+	 * @param forwarding
+	 *            true to hold successors and forward values between
+	 *            computers, false to return all results to the space
+	 * @throws RemoteException
+	 */
+	void setResultForwarding(boolean forwarding) throws RemoteException;
+
+	/**
+	 * Used by other computers to deliver the value of a task to the successor
+	 * of its parent, which is held by this computer
+	 * 
+	 * @param parentId
+	 *            ID of the waiting parent task
+	 * @param childId
+	 *            ID of the task that produced the value
+	 * @param value
+	 *            Value of the task (null if the task was pruned)
+	 * @throws RemoteException
+	 */
+	void putValue(String parentId, String childId, Object value)
+			throws RemoteException;
+
+	/**
+	 * Used by the compute space when other tasks wait for the values of the
+	 * given tasks, which solve the same subproblems
+	 * ({@link api.Task#getSubproblemKey()}). The values of these tasks are
+	 * then reported to the compute space even if they are forwarded to the
+	 * computers holding their parents.
+	 * 
+	 * @param taskIds
+	 *            IDs of the tasks whose values are wanted
+	 * @throws RemoteException
+	 */
+	void requestValues(List<String> taskIds) throws RemoteException;
+
+	/**
+	 * Used by the compute space to pass on the state that governs how finely
+	 * tasks are split
+	 * 
+	 * @param advice
+	 *            Dispatch overhead and idle capacity measured by the space
+	 * @throws RemoteException
+	 */
+	void setGranularityAdvice(GranularityAdvice advice)
+			throws RemoteException;
+
+	/**
+	 * Used by tasks executing on this computer to decide whether to split
+	 * 
+	 * @param task
+	 *            Task about to decompose
+	 * @return true if the task should split, false if it should compute its
+	 *         value sequentially, or null if the computer has no advice for
+	 *         tasks of its type yet
+	 * @throws RemoteException
+	 * @see api.Task#shouldSplit()
+	 */
+	Boolean adviseSplit(Task<?> task) throws RemoteException;
+
+	/**
+	 * Used by long-running tasks executing on this computer to decide whether
+	 * to donate part of their remaining work as new tasks
+	 * 
+	 * @return true if workers of this computer, or other computers of the
+	 *         compute space, have run out of tasks
+	 * @throws RemoteException
+	 * @see api.Task#shouldDonate()
+	 */
+	boolean hasIdleCapacity() throws RemoteException;
+
 	/**
 	 * 
 	 * @return Maximum size of internal the task queue
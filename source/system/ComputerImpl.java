@@ -1,18 +1,29 @@
 package system;
 
+import java.io.IOException;
 import java.net.InetAddress;
 import java.net.MalformedURLException;
 import java.net.UnknownHostException;
+import java.rmi.MarshalledObject;
 import java.rmi.Naming;
 import java.rmi.NotBoundException;
 import java.rmi.RemoteException;
+import java.rmi.UnmarshalException;
 import java.rmi.server.UnicastRemoteObject;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Random;
+import java.util.Set;
+import java.util.Vector;
 
 import api.Result;
+import api.SubTaskGenerator;
 import api.Task;
 
 /**
@@ -23,10 +34,11 @@ import api.Task;
  * @author Kowshik Prakasam
  */
 
-public class ComputerImpl extends UnicastRemoteObject implements Computer {
+public class ComputerImpl extends UnicastRemoteObject implements Computer,
+		SuccessorHost {
 
 	private static final long serialVersionUID = -4634299253959618077L;
-	private Shared<?> shared;
+	private volatile Shared<?> shared;
 	private Computer2Space space;
 	private String id;
 	private int numOfProcessors;
@@ -34,6 +46,21 @@ public class ComputerImpl extends UnicastRemoteObject implements Computer {
 	private ResultSink sink;
 	private int taskQueueMaxSize;
 	private int receivedTasks;
+	private volatile boolean sequentialMode;
+	private volatile boolean forwarding;
+	private volatile ShardRing ring;
+	private Map<String, Computer2Space> shards;
+	private Map<String, Successor> localSuccessors;
+	// Tasks whose values are wanted by the compute space
+	private Set<String> wantedValues;
+	// Number of computations abandoned so far
+	private int abandonedJobs;
+	// Value of abandonedJobs when each worker took its last task
+	private ThreadLocal<Integer> takenAt;
+	private GranularityController granularity;
+	private List<LinkedList<Task<?>>> workerQueues;
+	private ThreadLocal<LinkedList<Task<?>>> workerQueue;
+	private LocalityStats locality;
 	
 	// Return max size of task queue
 	public int getTaskQueueMaxSize() {
@@ -65,8 +92,16 @@ public class ComputerImpl extends UnicastRemoteObject implements Computer {
 		this.space = space;
 
 		this.taskQueue = new LinkedList<Task<?>>();
+		this.workerQueues = new Vector<LinkedList<Task<?>>>();
+		this.workerQueue = new ThreadLocal<LinkedList<Task<?>>>();
+		this.localSuccessors = Collections
+				.synchronizedMap(new HashMap<String, Successor>());
+		this.wantedValues = Collections
+				.synchronizedSet(new HashSet<String>());
+		this.takenAt = new ThreadLocal<Integer>();
 		this.shared=null;
 		this.receivedTasks=0;
+		this.granularity = new GranularityController();
 		try {
 			this.setNumOfProcessors(Runtime.getRuntime().availableProcessors());
 			this.setId(InetAddress.getLocalHost().getHostName() + "_"
@@ -92,11 +127,50 @@ public class ComputerImpl extends UnicastRemoteObject implements Computer {
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see system.Computer#addTaskBatch(java.rmi.MarshalledObject)
+	 */
+	@Override
+	public void addTaskBatch(MarshalledObject<List<Task<?>>> batch)
+			throws RemoteException {
+		try {
+			this.addTasks(batch.get());
+		} catch (IOException e) {
+			throw new UnmarshalException("Unable to read batch of tasks", e);
+		} catch (ClassNotFoundException e) {
+			throw new UnmarshalException("Unable to read batch of tasks", e);
+		}
+	}
+
 	// Add a task to the tail of the queue
 	public synchronized void addTask(Task<?> aTask) {
 		this.receivedTasks++;
 		System.err.println(this.getId()+" received : 1 task(s). Total : "+this.receivedTasks+".");
-		this.taskQueue.add(aTask);
+		aTask.setComputer(this);
+		this.queueLocally(aTask);
+	}
+
+	/**
+	 * Gives the calling worker thread its own task queue. Tasks produced by a
+	 * worker are queued in its own queue, so that they are executed by the
+	 * same thread, unless another worker runs out of tasks and steals them.
+	 */
+	public synchronized void registerWorker() {
+		LinkedList<Task<?>> queue = new LinkedList<Task<?>>();
+		this.workerQueues.add(queue);
+		this.workerQueue.set(queue);
+	}
+
+	// Queues a task in the queue of the calling worker, if any
+	private void queueLocally(Task<?> aTask) {
+		LinkedList<Task<?>> queue = this.workerQueue.get();
+		if (queue != null) {
+			queue.addLast(aTask);
+		} else {
+			this.taskQueue.add(aTask);
+		}
 	}
 
 	@Override
@@ -149,6 +223,7 @@ public class ComputerImpl extends UnicastRemoteObject implements Computer {
 					+ computeSpaceServer + "/" + Computer2Space.SERVICE_NAME);
 			ComputerImpl comp = new ComputerImpl(space);
 			space.register(comp, comp.getId(), comp.getNumOfProcessors());
+			comp.joinShards();
 			System.out.println("Computer ready : " + comp.getId());
 		} catch (RemoteException e) {
 			System.err.println("ComputerImpl Remote exception : ");
@@ -170,7 +245,22 @@ public class ComputerImpl extends UnicastRemoteObject implements Computer {
 	 */
 	@Override
 	public synchronized Integer getTaskQueueSize() throws RemoteException {
-		return this.taskQueue.size();
+		return this.getQueuedTasks();
+	}
+
+	// Number of tasks queued for the space and in the queues of all workers
+	private int getQueuedTasks() {
+		int size = this.taskQueue.size();
+		for (Task<?> t : this.taskQueue) {
+			if (t instanceof TaskBundle) {
+				// Every task of a bundle counts
+				size += ((TaskBundle) t).size() - 1;
+			}
+		}
+		for (LinkedList<Task<?>> queue : this.workerQueues) {
+			size += queue.size();
+		}
+		return size;
 	}
 
 	/**
@@ -190,10 +280,16 @@ public class ComputerImpl extends UnicastRemoteObject implements Computer {
 	 * @see system.Computer#startWorkers(int)
 	 */
 	@Override
-	public void startWorkers(int numOfWorkers, int taskQueueMaxSize)
-			throws RemoteException {
+	public synchronized void startWorkers(int numOfWorkers,
+			int taskQueueMaxSize) throws RemoteException {
+		if (this.sink != null) {
+			// Already started by another shard
+			return;
+		}
 		this.taskQueueMaxSize = taskQueueMaxSize;
 		this.sink = new ResultSink(this, taskQueueMaxSize);
+		this.locality = new LocalityStats(this.getId(), "own", "space",
+				"stolen");
 		for (int i = 0; i < numOfWorkers; i++) {
 			new Worker(this, sink);
 		}
@@ -201,19 +297,457 @@ public class ComputerImpl extends UnicastRemoteObject implements Computer {
 	}
 
 	/**
-	 * @return A task at the head of the task queue
+	 * Returns the task most recently produced by the calling worker. If the
+	 * worker has no tasks of its own, it takes a task received from the
+	 * space, or else steals the oldest task of another worker.
+	 * 
+	 * @return A task to be executed by the calling worker
 	 */
 	public synchronized Task<?> getTaskFromQueue() {
+		this.takenAt.set(this.abandonedJobs);
+		LinkedList<Task<?>> own = this.workerQueue.get();
+		if (own != null && !own.isEmpty()) {
+			locality.increment("own");
+			return own.removeLast();
+		}
 		if (!this.taskQueue.isEmpty()) {
+			locality.increment("space");
 			return this.taskQueue.remove();
 		}
+		for (LinkedList<Task<?>> queue : this.workerQueues) {
+			if (queue != own && !queue.isEmpty()) {
+				locality.increment("stolen");
+				return queue.removeFirst();
+			}
+		}
 		return null;
 	}
 
 	@Override
 	public void sendResults(Result<?> result) throws RemoteException {
+		if (ring != null) {
+			shards.get(ring.getOwner(result.getId())).sendResult(result,
+					this.id);
+			return;
+		}
 		space.sendResult(result, this.id);
-		
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see system.Computer#cancelTasks(java.util.List)
+	 */
+	@Override
+	public synchronized List<String> cancelTasks(List<String> taskIds)
+			throws RemoteException {
+		List<String> cancelled = new Vector<String>();
+		List<Queue<Task<?>>> queues = new Vector<Queue<Task<?>>>();
+		queues.add(this.taskQueue);
+		queues.addAll(this.workerQueues);
+		for (Queue<Task<?>> queue : queues) {
+			Iterator<Task<?>> it = queue.iterator();
+			while (it.hasNext()) {
+				Task<?> t = it.next();
+				if (taskIds.contains(t.getId())) {
+					it.remove();
+					cancelled.add(t.getId());
+				}
+			}
+		}
+		this.wantedValues.removeAll(cancelled);
+		return cancelled;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see system.Computer#abandonJob()
+	 */
+	@Override
+	public synchronized void abandonJob() throws RemoteException {
+		this.abandonedJobs++;
+		this.taskQueue.clear();
+		for (Queue<Task<?>> queue : this.workerQueues) {
+			queue.clear();
+		}
+		this.localSuccessors.clear();
+		this.wantedValues.clear();
+		if (this.sink != null) {
+			this.sink.clear();
+		}
+	}
+
+	/**
+	 * 
+	 * @return true if the computation of the task the calling worker took
+	 *         last has been abandoned since, so its result is to be discarded
+	 */
+	public synchronized boolean isTakenTaskAbandoned() {
+		Integer taken = this.takenAt.get();
+		return taken != null && taken != this.abandonedJobs;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see system.Computer#setSequentialMode(boolean)
+	 */
+	@Override
+	public void setSequentialMode(boolean sequentialMode)
+			throws RemoteException {
+		if (this.sequentialMode != sequentialMode) {
+			System.out.println(this.getId() + " -> Sequential mode : "
+					+ sequentialMode);
+		}
+		this.sequentialMode = sequentialMode;
+	}
+
+	/**
+	 * 
+	 * @return true if tasks have to be executed along with all their subtasks
+	 */
+	public boolean isSequentialMode() {
+		return this.sequentialMode;
+	}
+
+	/**
+	 * Keeps a task and all its subtasks in this computer, if all the subtasks
+	 * fit in the local task queue. The task waits in a local successor until
+	 * the values of its subtasks are known. Subtasks that are generated lazily
+	 * take up a single entry of the queue, a {@link system.SubTaskCursor
+	 * SubTaskCursor}, until they are built.
+	 * 
+	 * @param task
+	 *            Task that has just been decomposed
+	 * @param result
+	 *            Result carrying the subtasks of the task
+	 * @return true if the task is composed locally
+	 */
+	public synchronized boolean composeLocally(Task<?> task, Result<?> result) {
+		SubTaskGenerator<?> generator = result.getSubTaskGenerator();
+		if (generator != null) {
+			if (generator.size() == 0
+					|| this.getQueuedTasks() + 1 > this.taskQueueMaxSize) {
+				return false;
+			}
+			this.localSuccessors.put(task.getId(), new Successor(task, this,
+					generator.size()));
+			SubTaskCursor cursor = new SubTaskCursor(task, generator);
+			cursor.setComputer(this);
+			this.queueLocally(cursor);
+			return true;
+		}
+		List<? extends Task<?>> subTasks = result.getSubTasks();
+		if (this.getQueuedTasks() + subTasks.size() > this.taskQueueMaxSize) {
+			return false;
+		}
+		this.localSuccessors.put(task.getId(), new Successor(task, this,
+				subTasks.size()));
+		for (Task<?> t : subTasks) {
+			t.setComputer(this);
+			this.queueLocally(t);
+		}
+		return true;
+	}
+
+	/**
+	 * Builds the next subtask of a cursor taken from a queue. Subtasks that
+	 * can be pruned by now are never built, their values are null. The cursor
+	 * is queued again as long as subtasks remain.
+	 * 
+	 * @param cursor
+	 *            Cursor over the subtasks of a locally composed task
+	 * @return Subtask to be executed, or null if all remaining subtasks were
+	 *         pruned
+	 */
+	public Task<?> pullSubTask(SubTaskCursor cursor) {
+		SubTaskGenerator<?> generator = cursor.getGenerator();
+		int index;
+		while ((index = cursor.claim()) >= 0) {
+			Task<?> subTask = generator.generate(index);
+			if (subTask == null) {
+				Successor parent = this.localSuccessors.get(cursor
+						.getParentId());
+				if (parent == null) {
+					// The computation was abandoned
+					return null;
+				}
+				parent.getClosure().put(generator.getChildId(index), null);
+				continue;
+			}
+			if (cursor.hasNext()) {
+				synchronized (this) {
+					this.queueLocally(cursor);
+				}
+			}
+			subTask.setComputer(this);
+			return subTask;
+		}
+		return null;
+	}
+
+	/**
+	 * 
+	 * @param task
+	 *            A task executed by this computer
+	 * @return true if the successor of the parent of the task is held by
+	 *         this computer
+	 */
+	public boolean isLocallyComposed(Task<?> task) {
+		return task.getParentHost() == null
+				&& !task.getId().equals(task.getParentId())
+				&& this.localSuccessors.containsKey(task.getParentId());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see system.Computer#setResultForwarding(boolean)
+	 */
+	@Override
+	public void setResultForwarding(boolean forwarding)
+			throws RemoteException {
+		this.forwarding = forwarding;
+	}
+
+	/**
+	 * 
+	 * @return true if this computer holds the successors of the tasks it
+	 *         decomposes
+	 */
+	public boolean isForwarding() {
+		return this.forwarding;
+	}
+
+	/**
+	 * Holds the successor of a task whose subtasks are executed elsewhere.
+	 * The subtasks learn that their values have to be sent to this computer.
+	 * 
+	 * @param task
+	 *            Task that has just been decomposed
+	 * @param result
+	 *            Result carrying the subtasks of the task
+	 */
+	public void hostSuccessor(Task<?> task, Result<?> result) {
+		List<? extends Task<?>> subTasks = result.getSubTasks();
+		this.localSuccessors.put(task.getId(), new Successor(task, this,
+				subTasks.size()));
+		for (Task<?> t : subTasks) {
+			t.setParentHost(this);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see system.Computer#requestValues(java.util.List)
+	 */
+	@Override
+	public void requestValues(List<String> taskIds) throws RemoteException {
+		this.wantedValues.addAll(taskIds);
+	}
+
+	/**
+	 * 
+	 * @param task
+	 *            Task whose value has been forwarded to the computer holding
+	 *            its parent
+	 * @return true if the compute space asked for the value of the task
+	 *         ({@link #requestValues(List)}), which is asked for only once
+	 */
+	public boolean isValueWanted(Task<?> task) {
+		return this.wantedValues.remove(task.getId());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see system.Computer#putValue(java.lang.String, java.lang.String,
+	 * java.lang.Object)
+	 */
+	@Override
+	public void putValue(String parentId, String childId, Object value)
+			throws RemoteException {
+		Successor parent = this.localSuccessors.get(parentId);
+		if (parent == null) {
+			System.err.println(this.getId() + " -> No task waiting for result "
+					+ childId);
+			return;
+		}
+		parent.getClosure().put(childId, value);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see system.Computer#setGranularityAdvice(system.GranularityAdvice)
+	 */
+	@Override
+	public void setGranularityAdvice(GranularityAdvice advice)
+			throws RemoteException {
+		this.granularity.setAdvice(advice);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see system.Computer#adviseSplit(api.Task)
+	 */
+	@Override
+	public Boolean adviseSplit(Task<?> task) throws RemoteException {
+		return this.granularity.adviseSplit(task, this.hasIdleWorkers());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see system.Computer#hasIdleCapacity()
+	 */
+	@Override
+	public boolean hasIdleCapacity() throws RemoteException {
+		if (this.granularity.isWindingDown()) {
+			// No work is handed out any more
+			return false;
+		}
+		return this.hasIdleWorkers() || this.granularity.hasIdleComputers();
+	}
+
+	// true if some workers would find nothing to execute or steal
+	private synchronized boolean hasIdleWorkers() {
+		int entries = this.taskQueue.size();
+		for (LinkedList<Task<?>> queue : this.workerQueues) {
+			entries += queue.size();
+		}
+		return entries < this.workerQueues.size();
+	}
+
+	/**
+	 * Used by workers to report how long a task took to execute
+	 * 
+	 * @param task
+	 *            Task that has just been executed
+	 * @param result
+	 *            Result of the task, carrying its execution time
+	 */
+	public void recordExecution(Task<?> task, Result<?> result) {
+		this.granularity.record(task, result);
+	}
+
+	/**
+	 * 
+	 * @param task
+	 *            Task about to be executed
+	 * @return true if the task can no longer contribute to the computation,
+	 *         given the latest shared object, and is to be resolved with a
+	 *         null value instead of being executed
+	 */
+	boolean isPrunable(Task<?> task) {
+		// Read without locking, so that broadcasts do not hold up workers
+		Shared<?> latest = this.shared;
+		// The root task is never pruned, since no successor waits for its value
+		return latest != null && !task.getId().equals(task.getParentId())
+				&& task.isPrunable(latest);
+	}
+
+	/**
+	 * Sends the value of a task straight to the computer holding the
+	 * successor of its parent. The value is dropped if that computer cannot
+	 * be reached.
+	 * 
+	 * @param task
+	 *            Task that produced the result
+	 * @param result
+	 *            Result carrying the value of the task
+	 */
+	public void forwardValue(Task<?> task, Result<?> result) {
+		Computer host = task.getParentHost();
+		try {
+			if (this.equals(host)) {
+				this.putValue(task.getParentId(), task.getId(),
+						result.getValue());
+			} else {
+				host.putValue(task.getParentId(), task.getId(),
+						result.getValue());
+			}
+		} catch (RemoteException e) {
+			System.err.println(this.getId() + " -> Dropping result "
+					+ task.getId() + " : computer holding task "
+					+ task.getParentId() + " is not reachable");
+		}
+	}
+
+	/**
+	 * Passes the value of a locally composed task to the successor of its
+	 * parent
+	 * 
+	 * @param task
+	 *            Task that produced the result
+	 * @param result
+	 *            Result carrying the value of the task
+	 */
+	public void putLocalValue(Task<?> task, Result<?> result) {
+		Successor parent = this.localSuccessors.get(task.getParentId());
+		if (parent == null) {
+			// The computation was abandoned
+			return;
+		}
+		parent.getClosure().putResult(task.getId(), result);
+	}
+
+	/**
+	 * Queues a locally composed task for its Conquer phase
+	 * 
+	 * @see system.SuccessorHost#put(api.Task)
+	 */
+	@Override
+	public synchronized boolean put(Task<?> aTask) {
+		aTask.setComputer(this);
+		this.queueLocally(aTask);
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see system.SuccessorHost#removeFromWaitQ(api.Task)
+	 */
+	@Override
+	public void removeFromWaitQ(Task<?> task) {
+		this.localSuccessors.remove(task.getId());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see system.Computer#setShards(system.ShardRing, java.util.Map)
+	 */
+	@Override
+	public void setShards(ShardRing ring, Map<String, Computer2Space> spaces)
+			throws RemoteException {
+		this.shards = spaces;
+		this.ring = ring;
+	}
+
+	/**
+	 * Registers with all shards other than the compute space this computer
+	 * registered with, if that space turned out to be sharded
+	 * 
+	 * @throws RemoteException
+	 */
+	public void joinShards() throws RemoteException {
+		if (ring == null) {
+			return;
+		}
+		for (Map.Entry<String, Computer2Space> e : shards.entrySet()) {
+			if (!e.getValue().equals(space)) {
+				e.getValue().register(this, this.getId(),
+						this.getNumOfProcessors());
+				System.out.println(this.getId() + " -> Registered with shard "
+						+ e.getKey());
+			}
+		}
 	}
 
 
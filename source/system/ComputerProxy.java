@@ -1,8 +1,12 @@
 package system;
 
 import java.rmi.RemoteException;
-import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Vector;
 
 import api.Task;
@@ -22,6 +26,10 @@ import api.Task;
  * href="http://en.wikipedia.org/wiki/Divide_and_conquer_algorithm">Divide and
  * conquer algorithm</a>.
  * 
+ * Each proxy also holds the ready subtasks produced by the remote computer
+ * that have not been dispatched yet. These tasks are preferably dispatched
+ * back to the same computer.
+ * 
  * @author Manasa Chandrasekhar
  * @author Kowshik Prakasam
  * 
@@ -29,7 +37,11 @@ import api.Task;
 public class ComputerProxy {
 	private Computer compObj;
 	private String id;
-	private List<Task<?>> queuedTasks;
+	private Map<String, Task<?>> queuedTasks;
+	private Map<String, Long> dispatchTimes;
+	private Set<String> abandonedTasks;
+	private ReadyQueue affineTasks;
+	private Map<String, Task<?>> hostedTasks;
 
 	/**
 	 * 
@@ -46,7 +58,11 @@ public class ComputerProxy {
 		this.compObj = compObj;
 		this.id = proxyId;
 		compObj.setId(this.id);
-		this.queuedTasks = new Vector<Task<?>>();
+		this.queuedTasks = new LinkedHashMap<String, Task<?>>();
+		this.dispatchTimes = new HashMap<String, Long>();
+		this.abandonedTasks = new HashSet<String>();
+		this.affineTasks = new ReadyQueue();
+		this.hostedTasks = new LinkedHashMap<String, Task<?>>();
 
 	}
 
@@ -71,22 +87,31 @@ public class ComputerProxy {
 
 	/**
 	 * 
-	 * @return Size of task queue
+	 * @return A copy of the internal task queue
 	 */
 
-	public List<Task<?>> getTaskQueue() {
+	public synchronized List<Task<?>> getTaskQueue() {
 
-		return queuedTasks;
+		return new Vector<Task<?>>(queuedTasks.values());
 
 	}
 
+	/**
+	 * 
+	 * @return Number of tasks queued or running in the remote computer
+	 */
+	public synchronized int getTaskQueueSize() {
+		return queuedTasks.size();
+	}
+
 	/**
 	 * 
 	 * @param task
 	 *            Task to be appended to internal task queue
 	 */
-	public void addTaskToQueue(Task<?> task) {
-		queuedTasks.add(task);
+	public synchronized void addTaskToQueue(Task<?> task) {
+		queuedTasks.put(task.getId(), task);
+		dispatchTimes.put(task.getId(), System.currentTimeMillis());
 	}
 
 	/**
@@ -103,37 +128,165 @@ public class ComputerProxy {
 	 * 
 	 * @param id
 	 *            ID of task to be fetched from internal task queue
-	 * @return
+	 * @return Task with the given ID, or null if the task is not queued in
+	 *         this proxy
 	 */
 
 	public synchronized Task<?> getTaskFromQueue(String id) {
+		return queuedTasks.get(id);
+	}
 
-		for (int index = 0; index < queuedTasks.size(); index++) {
-			Task<?> t = queuedTasks.get(index);
-			if (t.getId().equals(id)) {
-				return t;
-			}
+	/**
+	 * 
+	 * @param id
+	 *            ID of a queued task
+	 * @return Time (in milliseconds) at which the task was handed over to the
+	 *         remote computer, or -1 if the task is not queued in this proxy
+	 */
+	public synchronized long getDispatchTime(String id) {
+		Long dispatchTime = dispatchTimes.get(id);
+		if (dispatchTime == null) {
+			return -1;
 		}
-		return null;
-
+		return dispatchTime;
 	}
 
 	/**
 	 * 
 	 * @param id
 	 *            ID of task to be removed from internal task queue
+	 * @return The removed task, or null if the task is not queued in this
+	 *         proxy
+	 */
+
+	public synchronized Task<?> removeTaskFromQueue(String id) {
+		dispatchTimes.remove(id);
+		Task<?> task = queuedTasks.remove(id);
+		if (task == null) {
+			task = hostedTasks.remove(id);
+		}
+		return task;
+	}
+
+	/**
+	 * Records a decomposed task whose successor is held by the remote
+	 * computer. The task is not counted as queued, but its final result is
+	 * still expected from the remote computer.
+	 * 
+	 * @param task
+	 *            Task waiting for the values of its children in the remote
+	 *            computer
 	 */
+	public synchronized void hostTask(Task<?> task) {
+		hostedTasks.put(task.getId(), task);
+	}
 
-	public synchronized void removeTaskFromQueue(String id) {
-		Task<?> t = null;
-		for (int index = 0; index < queuedTasks.size(); index++) {
-			t = queuedTasks.get(index);
-			if (t.getId().equals(id)) {
-				break;
-			}
+	/**
+	 * 
+	 * @return A copy of the tasks whose successors are held by the remote
+	 *         computer
+	 */
+	public synchronized List<Task<?>> getHostedTasks() {
+		return new Vector<Task<?>>(hostedTasks.values());
+	}
+
+	/**
+	 * Stops tracking a queued task whose result is no longer expected, and
+	 * remembers that a late result may still be reported for it.
+	 * 
+	 * @param id
+	 *            ID of task to be abandoned
+	 */
+	public synchronized void abandonTask(String id) {
+		dispatchTimes.remove(id);
+		if (queuedTasks.remove(id) != null) {
+			abandonedTasks.add(id);
 		}
-		if (t != null) {
-			queuedTasks.remove(t);
+	}
+
+	/**
+	 * 
+	 * @param id
+	 *            ID of an abandoned task
+	 * @return true if the task had been abandoned and is now forgotten, false
+	 *         if the task was never abandoned
+	 */
+	public synchronized boolean forgetAbandonedTask(String id) {
+		return abandonedTasks.remove(id);
+	}
+
+	/**
+	 * 
+	 * @param task
+	 *            Ready subtask produced by the remote computer, to be
+	 *            preferably dispatched to the same computer
+	 */
+	public void addAffineTask(Task<?> task) {
+		affineTasks.add(task);
+	}
+
+	/**
+	 * 
+	 * @return A ready subtask produced by the remote computer, or null if
+	 *         there is none
+	 */
+	public Task<?> takeAffineTask() {
+		return affineTasks.remove();
+	}
+
+	/**
+	 * 
+	 * @param type
+	 *            Type of task that can be taken
+	 * @return The next ready subtask produced by the remote computer, or null
+	 *         if there is none or it is not of the given type
+	 */
+	public Task<?> takeAffineTask(Class<?> type) {
+		return affineTasks.remove(type);
+	}
+
+	/**
+	 * 
+	 * @return Number of ready subtasks produced by the remote computer
+	 */
+	public int getAffineTaskCount() {
+		return affineTasks.size();
+	}
+
+	/**
+	 * 
+	 * @return A copy of the ready subtasks produced by the remote computer
+	 */
+	public List<Task<?>> getAffineTasks() {
+		return affineTasks.toList();
+	}
+
+	/**
+	 * Stops tracking all tasks of an abandoned computation. Results reported
+	 * for them later are discarded as results of unknown tasks.
+	 * 
+	 * @return IDs of the tasks that were queued in the remote computer
+	 */
+	public synchronized List<String> clearTasks() {
+		List<String> ids = new Vector<String>(queuedTasks.keySet());
+		queuedTasks.clear();
+		hostedTasks.clear();
+		dispatchTimes.clear();
+		abandonedTasks.clear();
+		return ids;
+	}
+
+	/**
+	 * Removes all ready subtasks produced by the remote computer
+	 * 
+	 * @return The removed tasks
+	 */
+	public List<Task<?>> clearAffineTasks() {
+		List<Task<?>> tasks = new Vector<Task<?>>();
+		Task<?> task;
+		while ((task = affineTasks.remove()) != null) {
+			tasks.add(task);
 		}
+		return tasks;
 	}
 }
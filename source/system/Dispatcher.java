@@ -0,0 +1,137 @@
+package system;
+
+import java.rmi.RemoteException;
+import java.util.List;
+
+import api.Task;
+
+/**
+ * Dispatches ready tasks to a single registered {@link system.Computer
+ * Computer}. The compute space runs one dispatcher for each computer, so that
+ * a slow or unreachable computer never holds up dispatch to the others.
+ *
+ * Each batch of tasks is serialized by the dispatcher thread itself, before
+ * the remote call is made, without holding any lock of the compute space.
+ * A computer running in the JVM of the compute space is given the batch
+ * itself through a plain method call, without any copy
+ * ({@link system.SpaceImpl#sendTasks(ComputerProxy, List)}).
+ *
+ * The load of the computer is the number of its tasks whose results the
+ * compute space still waits for, as kept by its proxy, so the dispatcher
+ * never calls the computer to decide whether to give it more. Arriving
+ * results wake the dispatcher up.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ *
+ */
+public class Dispatcher implements Runnable {
+
+	// Number of outstanding tasks below which a computer is given more tasks
+	private static final int MIN_COMP_QSIZE = 500;
+
+	// Maximum time (in milliseconds) to wait for ready tasks or free capacity
+	private static final long DISPATCH_WAIT = 10;
+
+	private Thread t;
+	private SpaceImpl space;
+	private ComputerProxy cp;
+	private int workers;
+	private int capacity;
+	private volatile boolean failed;
+	private volatile boolean starved;
+
+	/**
+	 *
+	 * @param space
+	 *            Compute space holding the ready tasks
+	 * @param cp
+	 *            Proxy of the computer to which tasks are dispatched
+	 * @param workers
+	 *            Number of worker threads of the computer
+	 * @param queueSize
+	 *            Number of tasks the computer queues while its workers are
+	 *            busy
+	 */
+	public Dispatcher(SpaceImpl space, ComputerProxy cp, int workers,
+			int queueSize) {
+		this.space = space;
+		this.cp = cp;
+		this.workers = workers;
+		this.capacity = workers + queueSize;
+		t = new Thread(this, "Dispatcher_" + cp.getId());
+		t.setDaemon(true);
+		t.start();
+	}
+
+	/**
+	 *
+	 * @return true if the computer could not be reached and the dispatcher
+	 *         has stopped
+	 */
+	public boolean hasFailed() {
+		return failed;
+	}
+
+	/**
+	 *
+	 * @return true if the computer had no tasks waiting for its workers when
+	 *         the compute space last had none to give it
+	 */
+	public boolean isStarved() {
+		return starved;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * Hands over batches of ready tasks whenever the computer has capacity.
+	 * Waits for the compute space to signal new ready tasks or arriving
+	 * results otherwise.
+	 *
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+		Computer comp = cp.getCompObj();
+		while (true) {
+			long epoch = space.getDispatchEpoch();
+			try {
+				if (!this.dispatch(comp)) {
+					space.awaitDispatch(epoch, DISPATCH_WAIT);
+				}
+			} catch (RemoteException e) {
+				System.err.println("Remote Exception occurred in Computer: "
+						+ cp.getId());
+				e.printStackTrace();
+				failed = true;
+				return;
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+
+	// Returns false if no task could be dispatched
+	private boolean dispatch(Computer comp) throws RemoteException {
+		int outstanding = cp.getTaskQueueSize();
+		if (outstanding >= Math.min(MIN_COMP_QSIZE, capacity)) {
+			starved = false;
+			return false;
+		}
+		List<Task<?>> batch = space.takeTasksFor(cp, capacity - outstanding);
+		if (batch.isEmpty()) {
+			// No task is left waiting for a worker
+			starved = (outstanding <= workers);
+			return false;
+		}
+		starved = false;
+		List<String> wanted = space.takeWantedIds(batch);
+		if (!wanted.isEmpty()) {
+			// Requested first, so that no value is reported without it
+			comp.requestValues(wanted);
+		}
+		space.sendTasks(cp, batch);
+		return true;
+	}
+}
@@ -0,0 +1,99 @@
+package system;
+
+import java.io.Serializable;
+
+/**
+ * State of the compute space that computers need in order to decide at
+ * runtime how finely tasks should be split ({@link api.Task#shouldSplit()}).
+ * The compute space measures it and pushes it to all computers.
+ *
+ * When a computation has a time budget, the advice also tells computers how
+ * long they may go on splitting tasks. Clocks of computers and compute space
+ * need not agree, since only the time left is passed on.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ *
+ */
+public class GranularityAdvice implements Serializable {
+
+	private static final long serialVersionUID = 4632708116954190461L;
+
+	/**
+	 * Time left if computers may split tasks for as long as they see fit
+	 */
+	public static final long NO_DEADLINE = -1;
+
+	private long overhead;
+	private int idleComputers;
+	private long splitTimeLeft;
+
+	/**
+	 *
+	 * @param overhead
+	 *            Time (in milliseconds) a task spends being dispatched and
+	 *            having its result returned, in addition to its execution
+	 * @param idleComputers
+	 *            Number of computers that have run out of tasks while the
+	 *            compute space had none to give them
+	 */
+	public GranularityAdvice(long overhead, int idleComputers) {
+		this(overhead, idleComputers, NO_DEADLINE);
+	}
+
+	/**
+	 *
+	 * @param overhead
+	 *            Time (in milliseconds) a task spends being dispatched and
+	 *            having its result returned, in addition to its execution
+	 * @param idleComputers
+	 *            Number of computers that have run out of tasks while the
+	 *            compute space had none to give them
+	 * @param splitTimeLeft
+	 *            Time (in milliseconds) after which tasks must no longer
+	 *            split, or {@link #NO_DEADLINE}
+	 */
+	public GranularityAdvice(long overhead, int idleComputers,
+			long splitTimeLeft) {
+		this.overhead = overhead;
+		this.idleComputers = idleComputers;
+		this.splitTimeLeft = splitTimeLeft;
+	}
+
+	/**
+	 *
+	 * @return Time (in milliseconds) a task spends being dispatched and having
+	 *         its result returned, in addition to its execution
+	 */
+	public long getOverhead() {
+		return overhead;
+	}
+
+	/**
+	 *
+	 * @return Number of computers that have run out of tasks while the
+	 *         compute space had none to give them
+	 */
+	public int getIdleComputers() {
+		return idleComputers;
+	}
+
+	/**
+	 *
+	 * @return Time (in milliseconds) after which tasks must no longer split,
+	 *         or {@link #NO_DEADLINE}
+	 */
+	public long getSplitTimeLeft() {
+		return splitTimeLeft;
+	}
+
+	@Override
+	public String toString() {
+		String s = "overhead " + overhead + " ms, " + idleComputers
+				+ " idle computer(s)";
+		if (splitTimeLeft != NO_DEADLINE) {
+			s += ", splitting for " + splitTimeLeft + " ms";
+		}
+		return s;
+	}
+}
@@ -0,0 +1,188 @@
+package system;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import api.Result;
+import api.Task;
+
+/**
+ * Decides at runtime whether a task should split into subtasks or compute its
+ * value sequentially ({@link api.Task#shouldSplit()}). Each computer runs one
+ * controller, which measures how long tasks take to compute their values
+ * sequentially. A task type is identified by the class of the task together
+ * with its level in the decomposition tree.
+ *
+ * A task is split only if it is expected to run much longer than the
+ * overhead of dispatching a task, as measured by the compute space. While
+ * computers or workers are idle, tasks are split more eagerly so that the
+ * idle capacity is put to work. For a level on which no task has computed
+ * its value yet, the duration is extrapolated from the level below it, unless
+ * tasks of that level take too little time to be measured reliably. Tasks of
+ * a type that has not been measured at all follow their own default.
+ *
+ * The factor by which a task must outlast the overhead can be set with the
+ * system property <code>computer.granularity.factor</code>.
+ *
+ * Once a computation with a time budget is winding down, no task splits
+ * any more, whatever its type.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ *
+ */
+public class GranularityController {
+
+	// Number of samples required before an expected duration is used
+	private static final int MIN_SAMPLES = 10;
+
+	// Multiple of the overhead a task must take to be worth splitting
+	private static final int SPLIT_FACTOR = Integer.getInteger(
+			"computer.granularity.factor", 20);
+
+	// Multiple of the overhead used instead while there is idle capacity
+	private static final int IDLE_SPLIT_FACTOR = 2;
+
+	// Durations (in nanoseconds) too short to be extrapolated from
+	private static final long MIN_EXTRAPOLATED_DURATION = 1000;
+
+	private static final String ID_DELIM = "-";
+
+	private volatile GranularityAdvice advice;
+	private volatile long splitDeadline;
+	private Map<String, Timing> timings;
+
+	/**
+	 * Default constructor
+	 */
+	public GranularityController() {
+		this.advice = new GranularityAdvice(1, 0);
+		this.splitDeadline = Long.MAX_VALUE;
+		this.timings = new HashMap<String, Timing>();
+	}
+
+	/**
+	 *
+	 * @param advice
+	 *            Latest state of the compute space
+	 */
+	public void setAdvice(GranularityAdvice advice) {
+		long timeLeft = advice.getSplitTimeLeft();
+		this.splitDeadline = (timeLeft == GranularityAdvice.NO_DEADLINE) ? Long.MAX_VALUE
+				: System.currentTimeMillis() + timeLeft;
+		this.advice = advice;
+	}
+
+	/**
+	 *
+	 * @return true if the computation is running out of time, so tasks must
+	 *         not split
+	 */
+	public boolean isWindingDown() {
+		return System.currentTimeMillis() >= this.splitDeadline;
+	}
+
+	/**
+	 * 
+	 * @return true if the compute space has computers without tasks
+	 */
+	public boolean hasIdleComputers() {
+		return this.advice.getIdleComputers() > 0;
+	}
+
+	/**
+	 * Records how long a task took, if it computed its value sequentially
+	 *
+	 * @param task
+	 *            Task that has just been executed
+	 * @param result
+	 *            Result of the task, carrying its execution time
+	 */
+	public synchronized void record(Task<?> task, Result<?> result) {
+		if (result == null) {
+			return;
+		}
+		if (task instanceof TaskBundle) {
+			TaskBundle bundle = (TaskBundle) task;
+			List<Task<?>> tasks = bundle.getTasks();
+			List<Result<?>> results = ((BundleResult) result).getResults();
+			for (int i = 0; i < tasks.size(); i++) {
+				// Pruned tasks say nothing about how long tasks take
+				if (!bundle.isPruned(tasks.get(i))) {
+					this.record(tasks.get(i), results.get(i));
+				}
+			}
+			return;
+		}
+		if (task.getStatus() != Task.Status.DECOMPOSE
+				|| result.getSubTasks() != null
+				|| result.getSubTaskGenerator() != null) {
+			return;
+		}
+		String type = getType(task, getLevel(task));
+		Timing timing = timings.get(type);
+		if (timing == null) {
+			timing = new Timing();
+			timings.put(type, timing);
+		}
+		timing.samples++;
+		timing.totalTime += result.getExecutionTime();
+	}
+
+	/**
+	 *
+	 * @param task
+	 *            Task about to decompose
+	 * @param idleWorkers
+	 *            true if some workers of the computer have nothing to execute
+	 * @return true if the task should split, false if it should compute its
+	 *         value sequentially (always, once the computation is winding
+	 *         down), or null if tasks of its type have not been measured yet
+	 */
+	public synchronized Boolean adviseSplit(Task<?> task, boolean idleWorkers) {
+		if (this.isWindingDown()) {
+			return false;
+		}
+		int level = getLevel(task);
+		long expected = this.getExpectedDuration(getType(task, level));
+		if (expected < 0) {
+			long childDuration = this.getExpectedDuration(getType(task,
+					level + 1));
+			if (childDuration < MIN_EXTRAPOLATED_DURATION) {
+				return null;
+			}
+			expected = childDuration * task.getDecompositionSize();
+		}
+		GranularityAdvice current = this.advice;
+		int factor = (idleWorkers || current.getIdleComputers() > 0) ? IDLE_SPLIT_FACTOR
+				: SPLIT_FACTOR;
+		return expected > factor
+				* TimeUnit.MILLISECONDS.toNanos(current.getOverhead());
+	}
+
+	// Expected duration (in nanoseconds), or -1 if not enough samples
+	private long getExpectedDuration(String type) {
+		Timing timing = timings.get(type);
+		if (timing == null || timing.samples < MIN_SAMPLES) {
+			return -1;
+		}
+		return timing.totalTime / timing.samples;
+	}
+
+	private static String getType(Task<?> task, int level) {
+		return task.getClass().getName() + ":" + level;
+	}
+
+	// Task IDs are made up of the level and the child number
+	private static int getLevel(Task<?> task) {
+		return Integer.parseInt(task.getId().split(ID_DELIM)[0]);
+	}
+
+	// Running totals for a single task type
+	private static class Timing {
+		private long samples;
+		private long totalTime;
+	}
+}
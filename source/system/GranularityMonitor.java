@@ -0,0 +1,144 @@
+package system;
+
+import java.rmi.RemoteException;
+
+/**
+ * Measures the state of the compute space that governs task granularity and
+ * pushes it to all computers as {@link system.GranularityAdvice
+ * GranularityAdvice}. The overhead of a task is the time between its dispatch
+ * and the arrival of its result, less its execution time on the computer.
+ * Since that time also includes waiting in the queue of the computer, the
+ * smallest overhead observed in each interval is used. Idle capacity is the
+ * number of computers whose dispatchers find them without tasks.
+ *
+ * The overhead assumed before any has been observed can be set with the
+ * system property <code>space.granularity.overhead</code> (in milliseconds).
+ *
+ * While a computation with a time budget runs, the advice also carries the
+ * time left until tasks must stop splitting.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ *
+ */
+public class GranularityMonitor implements Runnable {
+
+	// Time between two measurements
+	private static final long CHECK_INTERVAL = 1000;
+
+	private static final long DEFAULT_OVERHEAD = Long.getLong(
+			"space.granularity.overhead", 1);
+
+	// Overhead below which measurements are not trusted
+	private static final long MIN_OVERHEAD = 1;
+
+	private Thread t;
+	private SpaceImpl space;
+	private volatile GranularityAdvice advice;
+	private volatile long splitDeadline;
+	private long minOverhead;
+
+	/**
+	 *
+	 * @param space
+	 *            Compute space to be monitored
+	 */
+	public GranularityMonitor(SpaceImpl space) {
+		this.space = space;
+		this.advice = new GranularityAdvice(DEFAULT_OVERHEAD, 0);
+		this.minOverhead = Long.MAX_VALUE;
+		this.splitDeadline = Long.MAX_VALUE;
+		t = new Thread(this, "GranularityMonitor");
+		t.setDaemon(true);
+		t.start();
+	}
+
+	/**
+	 *
+	 * @param overhead
+	 *            Time (in milliseconds) between the dispatch of a task and
+	 *            the arrival of its result, less its execution time
+	 */
+	public synchronized void recordOverhead(long overhead) {
+		minOverhead = Math.min(minOverhead, Math.max(overhead, MIN_OVERHEAD));
+	}
+
+	/**
+	 * Brings a newly registered computer in line with the current advice
+	 *
+	 * @param computer
+	 *            Computer that just registered with the space
+	 * @throws RemoteException
+	 */
+	public void register(Computer computer) throws RemoteException {
+		GranularityAdvice current = this.advice;
+		computer.setGranularityAdvice(this.newAdvice(current.getOverhead(),
+				current.getIdleComputers()));
+	}
+
+	/**
+	 * Tells all computers when tasks must stop splitting
+	 *
+	 * @param splitDeadline
+	 *            Time (in milliseconds, by the clock of the compute space)
+	 *            after which tasks must not split, or Long.MAX_VALUE if they
+	 *            may split for as long as they see fit
+	 */
+	public void setSplitDeadline(long splitDeadline) {
+		this.splitDeadline = splitDeadline;
+		GranularityAdvice current = this.advice;
+		this.setAdvice(this.newAdvice(current.getOverhead(), current
+				.getIdleComputers()));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * Periodically measures the space and pushes changes to all computers
+	 *
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+		while (true) {
+			try {
+				Thread.sleep(CHECK_INTERVAL);
+			} catch (InterruptedException e) {
+				return;
+			}
+			long overhead;
+			synchronized (this) {
+				overhead = (minOverhead == Long.MAX_VALUE) ? advice
+						.getOverhead() : minOverhead;
+				minOverhead = Long.MAX_VALUE;
+			}
+			int idleComputers = space.getIdleComputerCount();
+			if (overhead != advice.getOverhead()
+					|| idleComputers != advice.getIdleComputers()) {
+				this.setAdvice(this.newAdvice(overhead, idleComputers));
+			}
+		}
+	}
+
+	// Computers work out the split deadline by their own clocks
+	private GranularityAdvice newAdvice(long overhead, int idleComputers) {
+		long deadline = this.splitDeadline;
+		long timeLeft = GranularityAdvice.NO_DEADLINE;
+		if (deadline != Long.MAX_VALUE) {
+			timeLeft = Math.max(0, deadline - System.currentTimeMillis());
+		}
+		return new GranularityAdvice(overhead, idleComputers, timeLeft);
+	}
+
+	private void setAdvice(GranularityAdvice advice) {
+		this.advice = advice;
+		for (ComputerProxy cp : space.getProxies()) {
+			try {
+				cp.getCompObj().setGranularityAdvice(advice);
+			} catch (RemoteException e) {
+				System.err.println("GranularityMonitor -> Computer "
+						+ cp.getId() + " is not reachable");
+			}
+		}
+	}
+}
@@ -0,0 +1,186 @@
+package system;
+
+import java.io.Serializable;
+
+/**
+ * Shared object of a branch-and-bound computation
+ * ({@link api.BranchAndBound}): the objective value of the best solution
+ * found so far, which any task may improve. A task whose bound cannot beat
+ * the incumbent is pruned. Both minimization and maximization problems are
+ * supported; an incumbent without a value means no solution has been found
+ * yet.
+ * 
+ * An incumbent may carry the solution itself, so that the compute space can
+ * return it when a computation runs out of time. Once the computation is
+ * abandoned, the compute space closes the incumbent: a closed incumbent
+ * admits no node, so the remaining tasks are pruned, and it is never
+ * replaced.
+ * 
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ * 
+ */
+public class Incumbent implements Shared<Double>, Serializable {
+
+	private static final long serialVersionUID = -4114735453003728712L;
+	private double value;
+	private boolean minimization;
+	private Serializable solution;
+	private boolean closed;
+
+	/**
+	 * Creates an incumbent without a value
+	 * 
+	 * @param minimization
+	 *            true if smaller objective values are better
+	 */
+	public Incumbent(boolean minimization) {
+		this(Double.NaN, minimization);
+	}
+
+	/**
+	 * 
+	 * @param value
+	 *            Objective value of the best solution found so far, or NaN if
+	 *            none has been found
+	 * @param minimization
+	 *            true if smaller objective values are better
+	 */
+	public Incumbent(double value, boolean minimization) {
+		this(value, minimization, null);
+	}
+
+	/**
+	 * 
+	 * @param value
+	 *            Objective value of the best solution found so far
+	 * @param minimization
+	 *            true if smaller objective values are better
+	 * @param solution
+	 *            Best solution found so far, in the form of the value of the
+	 *            root task of the computation
+	 */
+	public Incumbent(double value, boolean minimization,
+			Serializable solution) {
+		this.value = value;
+		this.minimization = minimization;
+		this.solution = solution;
+	}
+
+	/**
+	 * 
+	 * @return Best solution found so far, or null if none has been found or
+	 *         it was not shared
+	 */
+	public Serializable getSolution() {
+		return this.solution;
+	}
+
+	/**
+	 * Closes the incumbent once the computation is abandoned
+	 * 
+	 * @return A copy of this incumbent that admits no node
+	 */
+	public Incumbent close() {
+		Incumbent closedIncumbent = new Incumbent(this.value,
+				this.minimization, this.solution);
+		closedIncumbent.closed = true;
+		return closedIncumbent;
+	}
+
+	/**
+	 * 
+	 * @return true if the computation has been abandoned
+	 */
+	public boolean isClosed() {
+		return this.closed;
+	}
+
+	/**
+	 * 
+	 * @return true if a solution has been found
+	 */
+	public boolean hasValue() {
+		return !Double.isNaN(this.value);
+	}
+
+	/**
+	 * 
+	 * @return Objective value of the best solution found so far, or NaN if
+	 *         none has been found
+	 */
+	public double getValue() {
+		return this.value;
+	}
+
+	/**
+	 * 
+	 * @return true if smaller objective values are better
+	 */
+	public boolean isMinimization() {
+		return this.minimization;
+	}
+
+	/**
+	 * 
+	 * @return true if the first objective value is strictly better than the
+	 *         second
+	 */
+	public boolean isBetter(double first, double second) {
+		return minimization ? first < second : first > second;
+	}
+
+	/**
+	 * 
+	 * @param bound
+	 *            Bound on the objective values of the solutions below a node
+	 *            of the search tree
+	 * @return true if the node may lead to a solution at least as good as the
+	 *         incumbent, i.e. it must not be pruned, and the incumbent is not
+	 *         closed
+	 */
+	public boolean admits(double bound) {
+		if (this.closed) {
+			return false;
+		}
+		return !this.hasValue() || !this.isBetter(this.value, bound);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see system.Shared#isNewerThan(system.Shared)
+	 */
+	@Override
+	public boolean isNewerThan(Shared<?> newShared) {
+		if (this.closed) {
+			return true;
+		}
+		if (newShared instanceof Incumbent) {
+			Incumbent other = (Incumbent) newShared;
+			if (other.closed) {
+				return false;
+			}
+			if (other.hasValue()
+					&& (!this.hasValue() || this.isBetter(other.value,
+							this.value))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see system.Shared#get()
+	 */
+	@Override
+	public Double get() {
+		return this.value;
+	}
+
+	public String toString() {
+		return "Incumbent -> " + this.value;
+	}
+}
@@ -0,0 +1,109 @@
+package system;
+
+import java.util.List;
+
+import api.IntFoldable;
+import api.Result;
+import api.Task;
+
+/**
+ * Folds the int values of the subtasks of an {@link api.IntFoldable
+ * IntFoldable} task as they arrive, without boxing them, and hands them to the
+ * task once all values are known. Used by {@link system.Successor.Closure
+ * Closure} and {@link system.SequentialExecutor SequentialExecutor}.
+ * 
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+class IntAccumulator {
+
+	private Task<?> task;
+	// Null if the task does not fold ints
+	private IntFoldable folder;
+	private int accumulated;
+	private boolean hasValue;
+
+	/**
+	 * 
+	 * @param task
+	 *            Task whose subtasks' values are to be accumulated
+	 */
+	IntAccumulator(Task<?> task) {
+		this.task = task;
+		this.folder = (task instanceof IntFoldable) ? (IntFoldable) task
+				: null;
+	}
+
+	/**
+	 * 
+	 * @return true if the task folds the values of its subtasks as ints
+	 */
+	boolean foldsInts() {
+		return this.folder != null;
+	}
+
+	/**
+	 * Folds the value carried by a result, if the task folds ints and the
+	 * value is an int
+	 * 
+	 * @param result
+	 *            Result of a subtask
+	 * @return true if the value was folded
+	 */
+	boolean add(Result<?> result) {
+		if (this.folder == null || !(result instanceof IntResult)
+				|| !((IntResult) result).hasIntValue()) {
+			return false;
+		}
+		this.add(((IntResult) result).getIntValue());
+		return true;
+	}
+
+	/**
+	 * Folds a value into the values folded so far. Must only be called if the
+	 * task folds ints.
+	 * 
+	 * @param value
+	 *            Value of a subtask
+	 */
+	void add(int value) {
+		this.accumulated = this.hasValue ? folder.fold(this.accumulated,
+				value) : value;
+		this.hasValue = true;
+	}
+
+	/**
+	 * 
+	 * @return true if at least one value has been folded
+	 */
+	boolean hasValue() {
+		return this.hasValue;
+	}
+
+	/**
+	 * 
+	 * @return Values folded so far
+	 */
+	int getValue() {
+		return this.accumulated;
+	}
+
+	/**
+	 * Hands all values to the task: the folded value alone through
+	 * {@link api.IntFoldable#putIntValue(int)}, or together with the values
+	 * that were not folded through {@link api.Task#putValues(List)}
+	 * 
+	 * @param others
+	 *            Values of subtasks that were not folded as ints
+	 */
+	void putValues(List<Object> others) {
+		if (this.hasValue && others.isEmpty()) {
+			folder.putIntValue(this.accumulated);
+			return;
+		}
+		if (this.hasValue) {
+			others.add(this.accumulated);
+		}
+		task.putValues(others);
+	}
+}
@@ -0,0 +1,80 @@
+package system;
+
+/**
+ * A {@link api.Result Result} whose value is an int. The value is stored and
+ * sent without being boxed, and is folded as an int by tasks that are
+ * {@link api.IntFoldable IntFoldable}. It is boxed only if it is read through
+ * {@link #getValue()}.
+ * 
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+public class IntResult extends ResultImpl<Integer> {
+
+	private static final long serialVersionUID = 5930243761170846325L;
+	private int intValue;
+	private boolean hasValue;
+
+	/**
+	 * 
+	 * @param taskId
+	 *            ID of the task producing the result
+	 * @param taskParentId
+	 *            ID of the parent of the task
+	 */
+	public IntResult(String taskId, String taskParentId) {
+		super(taskId, taskParentId);
+	}
+
+	/**
+	 * 
+	 * @return Value computed by the task
+	 */
+	public int getIntValue() {
+		return this.intValue;
+	}
+
+	/**
+	 * 
+	 * @param value
+	 *            Value computed by the task
+	 */
+	public void setIntValue(int value) {
+		this.intValue = value;
+		this.hasValue = true;
+	}
+
+	/**
+	 * 
+	 * @return true if the task computed a value
+	 */
+	public boolean hasIntValue() {
+		return this.hasValue;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see system.ResultImpl#getValue()
+	 */
+	@Override
+	public Integer getValue() {
+		if (!this.hasValue) {
+			return null;
+		}
+		return this.intValue;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see system.ResultImpl#setValue(java.lang.Object)
+	 */
+	@Override
+	public void setValue(Integer value) {
+		this.hasValue = (value != null);
+		if (value != null) {
+			this.intValue = value;
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package system;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts where tasks are placed, so that the locality policy of the compute
+ * space and of computers can be observed. The counters are logged
+ * periodically whenever they change.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ *
+ */
+public class LocalityStats implements Runnable {
+
+	// Time between two reports
+	private static final long REPORT_INTERVAL = 10000;
+
+	private Thread t;
+	private String owner;
+	private Map<String, Long> counters;
+	private boolean changed;
+
+	/**
+	 *
+	 * @param owner
+	 *            Name printed along with the counters
+	 * @param names
+	 *            Names of the counters, in the order they are reported
+	 */
+	public LocalityStats(String owner, String... names) {
+		this.owner = owner;
+		this.counters = new LinkedHashMap<String, Long>();
+		for (String name : names) {
+			counters.put(name, 0L);
+		}
+		t = new Thread(this, "LocalityStats");
+		t.setDaemon(true);
+		t.start();
+	}
+
+	/**
+	 *
+	 * @param name
+	 *            Name of the counter to be incremented
+	 */
+	public synchronized void increment(String name) {
+		Long count = counters.get(name);
+		counters.put(name, count == null ? 1 : count + 1);
+		changed = true;
+	}
+
+	/**
+	 *
+	 * @return A copy of all counters
+	 */
+	public synchronized Map<String, Long> getCounters() {
+		return new LinkedHashMap<String, Long>(counters);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * Periodically logs the counters
+	 *
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+		while (true) {
+			try {
+				Thread.sleep(REPORT_INTERVAL);
+			} catch (InterruptedException e) {
+				return;
+			}
+			synchronized (this) {
+				if (!changed) {
+					continue;
+				}
+				changed = false;
+				System.out.println(owner + " -> Task placement : " + counters);
+			}
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package system;
+
+import java.rmi.RemoteException;
+
+/**
+ * Applies backpressure when decomposition races ahead of execution. The
+ * monitor watches the number of live tasks in the compute space (ready tasks
+ * and tasks waiting for the values of their children) and the heap occupancy
+ * of the space. When either crosses its high-water mark, computers are asked
+ * to execute tasks sequentially instead of returning subtasks, and Conquer
+ * phases are dispatched ahead of Divide phases so that waiting tasks drain.
+ * Both are relaxed once the space falls below the low-water marks.
+ *
+ * The water marks can be set with the system properties
+ * <code>space.tasks.highWater</code>, <code>space.tasks.lowWater</code> (number
+ * of live tasks), <code>space.heap.highWater</code> and
+ * <code>space.heap.lowWater</code> (percentage of the maximum heap).
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ *
+ */
+public class PressureMonitor implements Runnable {
+
+	// Time between two checks of the state of the space
+	private static final long CHECK_INTERVAL = 200;
+
+	private static final int TASKS_HIGH_WATER = Integer.getInteger(
+			"space.tasks.highWater", 200000);
+	private static final int TASKS_LOW_WATER = Integer.getInteger(
+			"space.tasks.lowWater", 50000);
+	private static final int HEAP_HIGH_WATER = Integer.getInteger(
+			"space.heap.highWater", 80);
+	private static final int HEAP_LOW_WATER = Integer.getInteger(
+			"space.heap.lowWater", 60);
+
+	private Thread t;
+	private SpaceImpl space;
+	private volatile boolean underPressure;
+
+	/**
+	 *
+	 * @param space
+	 *            Compute space to be monitored
+	 */
+	public PressureMonitor(SpaceImpl space) {
+		this.space = space;
+		t = new Thread(this, "PressureMonitor");
+		t.setDaemon(true);
+		t.start();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * Periodically compares the state of the space with the water marks
+	 *
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+		while (true) {
+			try {
+				Thread.sleep(CHECK_INTERVAL);
+			} catch (InterruptedException e) {
+				return;
+			}
+			int liveTasks = space.getLiveTaskCount();
+			int heapUsage = getHeapUsage();
+			if (!underPressure
+					&& (liveTasks >= TASKS_HIGH_WATER || heapUsage >= HEAP_HIGH_WATER)) {
+				System.out.println("PressureMonitor -> High water : "
+						+ liveTasks + " live task(s), " + heapUsage
+						+ "% heap");
+				this.setPressure(true);
+			} else if (underPressure && liveTasks <= TASKS_LOW_WATER
+					&& heapUsage <= HEAP_LOW_WATER) {
+				System.out.println("PressureMonitor -> Low water : "
+						+ liveTasks + " live task(s), " + heapUsage
+						+ "% heap");
+				this.setPressure(false);
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @return true if the space is above its high-water marks and has not
+	 *         yet drained below its low-water marks
+	 */
+	public boolean isUnderPressure() {
+		return underPressure;
+	}
+
+	/**
+	 * Brings a newly registered computer in line with the current pressure
+	 *
+	 * @param computer
+	 *            Computer that just registered with the space
+	 * @throws RemoteException
+	 */
+	public void register(Computer computer) throws RemoteException {
+		computer.setSequentialMode(underPressure);
+	}
+
+	private void setPressure(boolean pressure) {
+		this.underPressure = pressure;
+		for (ComputerProxy cp : space.getProxies()) {
+			try {
+				cp.getCompObj().setSequentialMode(pressure);
+			} catch (RemoteException e) {
+				System.err.println("PressureMonitor -> Computer "
+						+ cp.getId() + " is not reachable");
+			}
+		}
+	}
+
+	// Heap in use, as a percentage of the maximum heap
+	private static int getHeapUsage() {
+		Runtime runtime = Runtime.getRuntime();
+		long used = runtime.totalMemory() - runtime.freeMemory();
+		return (int) (100 * used / runtime.maxMemory());
+	}
+}
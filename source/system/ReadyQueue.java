@@ -0,0 +1,315 @@
+package system;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.rmi.MarshalledObject;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Vector;
+
+import api.Task;
+
+/**
+ * FIFO queue of tasks that are ready to be dispatched to computers. Only a
+ * bounded number of tasks at the head of the queue are kept in memory. When a
+ * computation explodes into more ready tasks than that, the tasks behind the
+ * in-memory segment are serialized into memory-mapped segments of a spill
+ * file, outside the Java heap. As computers drain the queue, spilled tasks are
+ * read back in order to refill the in-memory segment.
+ *
+ * Segments of the spill file are reused once all the tasks in them have been
+ * read back, so the spill file only grows as large as the largest backlog.
+ * Tasks are spilled with the same semantics as tasks sent to computers
+ * ({@link java.rmi.MarshalledObject MarshalledObject}), so remote objects they
+ * refer to are written as stubs. A task that cannot be spilled is kept in
+ * memory behind the spilled tasks, along with all tasks added after it, so
+ * that the queue stays in order.
+ *
+ * Urgent tasks (e.g. Conquer phases that release waiting tasks while the
+ * space is under memory pressure) are kept in a separate in-memory lane that
+ * is always served first.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ *
+ */
+public class ReadyQueue {
+
+	// Maximum number of tasks kept in memory
+	private static final int HOT_CAPACITY = 20000;
+
+	// Size of each memory-mapped segment of the spill file
+	private static final int SEGMENT_SIZE = 16 * 1024 * 1024;
+
+	private LinkedList<Task<?>> urgentTasks;
+	private LinkedList<Task<?>> hotTasks;
+	// Tasks behind the spilled ones that could not be spilled
+	private LinkedList<Task<?>> coldTasks;
+	private LinkedList<Segment> segments;
+	private LinkedList<Segment> freeSegments;
+	private int spilledTasks;
+	private File spillFile;
+	private FileChannel channel;
+	private long fileSize;
+
+	/**
+	 * Creates an empty queue. The spill file is created the first time it is
+	 * needed.
+	 */
+	public ReadyQueue() {
+		this.urgentTasks = new LinkedList<Task<?>>();
+		this.hotTasks = new LinkedList<Task<?>>();
+		this.coldTasks = new LinkedList<Task<?>>();
+		this.segments = new LinkedList<Segment>();
+		this.freeSegments = new LinkedList<Segment>();
+	}
+
+	/**
+	 *
+	 * @param task
+	 *            Task to be added to the tail of the queue
+	 */
+	public synchronized void add(Task<?> task) {
+		if (spilledTasks == 0 && coldTasks.isEmpty()
+				&& hotTasks.size() < HOT_CAPACITY) {
+			hotTasks.add(task);
+			return;
+		}
+		if (coldTasks.isEmpty()) {
+			try {
+				this.spill(task);
+				return;
+			} catch (IOException e) {
+				System.err.println("ReadyQueue -> Unable to spill task "
+						+ task.getId() + " : " + e.getMessage());
+			}
+		}
+		// Keep the task in memory rather than lose it
+		coldTasks.add(task);
+	}
+
+	/**
+	 *
+	 * @param task
+	 *            Task to be dispatched ahead of all non-urgent tasks
+	 */
+	public synchronized void addUrgent(Task<?> task) {
+		urgentTasks.add(task);
+	}
+
+	/**
+	 *
+	 * @return Task at the head of the queue, or null if the queue is empty
+	 */
+	public synchronized Task<?> remove() {
+		return this.remove(Object.class);
+	}
+
+	/**
+	 * Removes the task at the head of the queue only if it is of the given
+	 * type, so that a task of another type keeps its place
+	 *
+	 * @param type
+	 *            Type of task that can be removed
+	 * @return Task at the head of the queue, or null if the queue is empty or
+	 *         the task at its head is not of the given type
+	 */
+	public synchronized Task<?> remove(Class<?> type) {
+		LinkedList<Task<?>> lane = urgentTasks;
+		if (lane.isEmpty()) {
+			if (hotTasks.size() < HOT_CAPACITY / 2
+					&& (spilledTasks > 0 || !coldTasks.isEmpty())) {
+				this.refill();
+			}
+			lane = hotTasks;
+		}
+		if (lane.isEmpty() || !type.isInstance(lane.getFirst())) {
+			return null;
+		}
+		return lane.removeFirst();
+	}
+
+	/**
+	 *
+	 * @return true if there are no tasks in the queue
+	 */
+	public synchronized boolean isEmpty() {
+		return urgentTasks.isEmpty() && hotTasks.isEmpty()
+				&& spilledTasks == 0 && coldTasks.isEmpty();
+	}
+
+	/**
+	 *
+	 * @return Number of tasks in the queue, in memory or spilled
+	 */
+	public synchronized int size() {
+		return urgentTasks.size() + hotTasks.size() + spilledTasks
+				+ coldTasks.size();
+	}
+
+	/**
+	 *
+	 * @return Number of tasks spilled outside the Java heap
+	 */
+	public synchronized int getSpilledSize() {
+		return spilledTasks;
+	}
+
+	/**
+	 * Reads the whole queue without removing any task. Spilled tasks are
+	 * deserialized, so this is only meant for rare events such as snapshots.
+	 *
+	 * @return Copy of all tasks in the queue, in order
+	 */
+	public synchronized List<Task<?>> toList() {
+		List<Task<?>> tasks = new Vector<Task<?>>(urgentTasks);
+		tasks.addAll(hotTasks);
+		for (Segment segment : segments) {
+			ByteBuffer view = segment.buffer.duplicate();
+			view.limit(segment.writePosition);
+			view.position(segment.readPosition);
+			while (view.hasRemaining()) {
+				try {
+					tasks.add(readTask(view));
+				} catch (IOException e) {
+					System.err.println("ReadyQueue -> Unable to read spilled task : "
+							+ e.getMessage());
+				}
+			}
+		}
+		tasks.addAll(coldTasks);
+		return tasks;
+	}
+
+	/**
+	 * Removes all tasks from the queue. Segments of the spill file are kept
+	 * for reuse.
+	 */
+	public synchronized void clear() {
+		urgentTasks.clear();
+		hotTasks.clear();
+		coldTasks.clear();
+		for (Segment segment : segments) {
+			segment.reset();
+			freeSegments.add(segment);
+		}
+		segments.clear();
+		spilledTasks = 0;
+	}
+
+	private void spill(Task<?> task) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(new MarshalledObject<Task<?>>(task));
+		out.close();
+		byte[] record = bytes.toByteArray();
+
+		Segment segment = segments.isEmpty() ? null : segments.getLast();
+		if (segment == null || segment.remaining() < record.length + 4) {
+			segment = this.allocate(record.length + 4);
+			segments.add(segment);
+		}
+		segment.buffer.position(segment.writePosition);
+		segment.buffer.putInt(record.length);
+		segment.buffer.put(record);
+		segment.writePosition = segment.buffer.position();
+		spilledTasks++;
+	}
+
+	// Moves spilled tasks, then tasks that could not be spilled, back into
+	// memory, in order
+	private void refill() {
+		while (spilledTasks > 0 && hotTasks.size() < HOT_CAPACITY) {
+			Segment segment = segments.getFirst();
+			segment.buffer.limit(segment.writePosition);
+			segment.buffer.position(segment.readPosition);
+			Task<?> task = null;
+			try {
+				task = readTask(segment.buffer);
+			} catch (IOException e) {
+				System.err.println("ReadyQueue -> Dropping unreadable spilled task : "
+						+ e.getMessage());
+			}
+			segment.readPosition = segment.buffer.position();
+			segment.buffer.limit(segment.buffer.capacity());
+			spilledTasks--;
+			if (task != null) {
+				hotTasks.add(task);
+			}
+			if (segment.readPosition == segment.writePosition) {
+				segments.removeFirst();
+				segment.reset();
+				freeSegments.add(segment);
+			}
+		}
+		while (spilledTasks == 0 && !coldTasks.isEmpty()
+				&& hotTasks.size() < HOT_CAPACITY) {
+			hotTasks.add(coldTasks.removeFirst());
+		}
+	}
+
+	// Reuses a free segment or maps a new one at the end of the spill file
+	private Segment allocate(int size) throws IOException {
+		for (Segment segment : freeSegments) {
+			if (segment.buffer.capacity() >= size) {
+				freeSegments.remove(segment);
+				return segment;
+			}
+		}
+		if (channel == null) {
+			spillFile = File.createTempFile("space", ".ready");
+			spillFile.deleteOnExit();
+			channel = new RandomAccessFile(spillFile, "rw").getChannel();
+			System.out.println("ReadyQueue -> Spilling ready tasks to "
+					+ spillFile.getPath());
+		}
+		int capacity = Math.max(SEGMENT_SIZE, size);
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE,
+				fileSize, capacity);
+		fileSize += capacity;
+		return new Segment(buffer);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Task<?> readTask(ByteBuffer buffer) throws IOException {
+		int length = buffer.getInt();
+		byte[] record = new byte[length];
+		buffer.get(record);
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(
+				record));
+		try {
+			return ((MarshalledObject<Task<?>>) in.readObject()).get();
+		} catch (ClassNotFoundException e) {
+			throw new IOException("Unknown task class : " + e.getMessage());
+		}
+	}
+
+	// A memory-mapped region of the spill file
+	private static class Segment {
+		private MappedByteBuffer buffer;
+		private int readPosition;
+		private int writePosition;
+
+		private Segment(MappedByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		private int remaining() {
+			return buffer.capacity() - writePosition;
+		}
+
+		private void reset() {
+			readPosition = 0;
+			writePosition = 0;
+			buffer.clear();
+		}
+	}
+}
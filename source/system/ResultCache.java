@@ -0,0 +1,197 @@
+package system;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import api.Result;
+
+/**
+ * Keeps the results of subproblems across computations, so that repeated or
+ * overlapping computations reuse them ({@link api.Task#getSubproblemKey()}).
+ * Results are looked up by the key of their subproblem. The most recently
+ * used results are kept in memory; the least recently used result is evicted
+ * once the cache is full.
+ *
+ * Results can also be kept on disk, one file per result, named after a
+ * digest of the key. A result evicted from memory is then read back from
+ * disk when it is needed again. The files are kept across restarts of the
+ * compute space and are never evicted.
+ *
+ * The number of results kept in memory can be set with the system property
+ * <code>space.cache.size</code> (0 disables the cache). The directory
+ * holding the results on disk can be set with the system property
+ * <code>space.cache.dir</code>.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ *
+ */
+public class ResultCache {
+
+	private static final int DEFAULT_SIZE = Integer.getInteger(
+			"space.cache.size", 1024);
+
+	private static final String DEFAULT_DIRECTORY = System
+			.getProperty("space.cache.dir");
+
+	private static final String FILE_SUFFIX = ".result";
+
+	private final int size;
+	private File directory;
+	private Map<String, Result<?>> results;
+
+	/**
+	 * Creates a cache configured by system properties
+	 */
+	public ResultCache() {
+		this(DEFAULT_SIZE, DEFAULT_DIRECTORY == null ? null : new File(
+				DEFAULT_DIRECTORY));
+	}
+
+	/**
+	 *
+	 * @param size
+	 *            Number of results kept in memory
+	 * @param directory
+	 *            Directory holding the results on disk, or null to keep them
+	 *            only in memory
+	 */
+	public ResultCache(int size, File directory) {
+		this.size = size;
+		this.results = new LinkedHashMap<String, Result<?>>(16, 0.75f, true) {
+			private static final long serialVersionUID = -5513497434582004616L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					Map.Entry<String, Result<?>> eldest) {
+				return this.size() > ResultCache.this.size;
+			}
+		};
+		if (directory != null && size > 0) {
+			if (directory.isDirectory() || directory.mkdirs()) {
+				this.directory = directory;
+			} else {
+				System.err.println("ResultCache -> Unable to create "
+						+ directory + ", results are kept in memory only");
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @param key
+	 *            Key of a subproblem
+	 * @return Result of the subproblem, or null if it is not cached
+	 */
+	public synchronized Result<?> get(String key) {
+		if (size <= 0) {
+			return null;
+		}
+		Result<?> result = results.get(key);
+		if (result == null && directory != null) {
+			result = this.read(key);
+			if (result != null) {
+				results.put(key, result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 *
+	 * @param key
+	 *            Key of a subproblem
+	 * @param result
+	 *            Result of the subproblem
+	 */
+	public synchronized void put(String key, Result<?> result) {
+		if (size <= 0) {
+			return;
+		}
+		results.put(key, result);
+		if (directory != null) {
+			this.write(key, result);
+		}
+	}
+
+	// Reads a result from disk, if its file exists and holds the same key
+	private Result<?> read(String key) {
+		File file = this.getFile(key);
+		if (!file.exists()) {
+			return null;
+		}
+		try {
+			ObjectInputStream in = new ObjectInputStream(new FileInputStream(
+					file));
+			try {
+				Entry entry = (Entry) in.readObject();
+				return entry.key.equals(key) ? entry.result : null;
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			System.err.println("ResultCache -> Unable to read " + file);
+		} catch (ClassNotFoundException e) {
+			System.err.println("ResultCache -> Unable to read " + file);
+		}
+		return null;
+	}
+
+	// Writes a result to disk, replacing its file atomically
+	private void write(String key, Result<?> result) {
+		File file = this.getFile(key);
+		File tmp = new File(file.getPath() + ".tmp");
+		try {
+			ObjectOutputStream out = new ObjectOutputStream(
+					new FileOutputStream(tmp));
+			try {
+				out.writeObject(new Entry(key, result));
+			} finally {
+				out.close();
+			}
+			if (!tmp.renameTo(file)) {
+				tmp.delete();
+			}
+		} catch (IOException e) {
+			System.err.println("ResultCache -> Unable to write " + file);
+			tmp.delete();
+		}
+	}
+
+	// Files are named after a digest of the key, since keys can be long
+	private File getFile(String key) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			StringBuilder name = new StringBuilder();
+			for (byte b : digest.digest(key.getBytes("UTF-8"))) {
+				name.append(String.format("%02x", b));
+			}
+			return new File(directory, name + FILE_SUFFIX);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	// Result kept on disk, together with its key to detect digest collisions
+	private static class Entry implements Serializable {
+		private static final long serialVersionUID = 2279640917493513406L;
+		private String key;
+		private Result<?> result;
+
+		private Entry(String key, Result<?> result) {
+			this.key = key;
+			this.result = result;
+		}
+	}
+}
@@ -4,6 +4,7 @@ import java.io.Serializable;
 import java.util.List;
 
 import api.Result;
+import api.SubTaskGenerator;
 import api.Task;
 
 /**
@@ -19,6 +20,10 @@ public class ResultImpl<T> implements Result<T>, Serializable {
 	private List<Task<T>> subTasks;
 	private String taskId;
 	private String taskParentId;
+	private long executionTime;
+	private boolean approximate;
+	// Subtasks are always built before a result leaves the computer
+	private transient SubTaskGenerator<T> generator;
 
 	/**
 	 * Default constructor
@@ -91,4 +96,64 @@ public class ResultImpl<T> implements Result<T>, Serializable {
 		return taskParentId;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see api.Result#getSubTaskGenerator()
+	 */
+	@Override
+	public SubTaskGenerator<T> getSubTaskGenerator() {
+		return this.generator;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see api.Result#setSubTaskGenerator(api.SubTaskGenerator)
+	 */
+	@Override
+	public void setSubTaskGenerator(SubTaskGenerator<T> generator) {
+		this.generator = generator;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see api.Result#getExecutionTime()
+	 */
+	@Override
+	public long getExecutionTime() {
+		return this.executionTime;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see api.Result#setExecutionTime(long)
+	 */
+	@Override
+	public void setExecutionTime(long executionTime) {
+		this.executionTime = executionTime;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see api.Result#isApproximate()
+	 */
+	@Override
+	public boolean isApproximate() {
+		return this.approximate;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see api.Result#setApproximate(boolean)
+	 */
+	@Override
+	public void setApproximate(boolean approximate) {
+		this.approximate = approximate;
+	}
+
 }
@@ -75,19 +75,136 @@ public class ResultSink implements Runnable {
 
 	/**
 	 * Thread-safe to ensure that multiple {@link system.Worker system.Worker}
-	 * threads can access the sink concurrently
+	 * threads can access the sink concurrently.
 	 * 
+	 * If all the subtasks of a task fit in the local task queue, the computer
+	 * composes the task locally and nothing is sent to the compute space until
+	 * the composed value is known. Subtasks of such a locally composed task
+	 * are unknown to the compute space, so their results never leave the
+	 * computer; if their own subtasks do not fit in the local queue, they are
+	 * executed right away on the calling thread.
+	 * 
+	 * If result forwarding is enabled, a task whose subtasks do not fit in
+	 * the local queue still waits in a local successor, while its subtasks
+	 * are dispatched by the compute space. Values of subtasks are sent
+	 * straight to the computer holding the successor of their parent.
+	 * 
+	 * The results of the tasks of a {@link system.TaskBundle TaskBundle} are
+	 * handled one by one, and those that have to be sent to the compute space
+	 * are sent together.
+	 * 
+	 * @param task
+	 *            Task that produced the result
 	 * @param aResult
 	 *            Result to be added to the sink
 	 */
-	public synchronized void putResult(Result<?> aResult) {
+	public void putResult(Task<?> task, Result<?> aResult) {
+		if (aResult == null) {
+			return;
+		}
+		if (task instanceof TaskBundle) {
+			// Results of a bundle are returned together
+			List<Task<?>> tasks = ((TaskBundle) task).getTasks();
+			List<Result<?>> results = ((BundleResult) aResult).getResults();
+			BundleResult remaining = new BundleResult(aResult.getId());
+			for (int i = 0; i < tasks.size(); i++) {
+				Result<?> r = this.settle(tasks.get(i), results.get(i));
+				if (r != null) {
+					remaining.add(r);
+				}
+			}
+			if (!remaining.getResults().isEmpty()) {
+				this.putResult(remaining);
+			}
+			return;
+		}
+		Result<?> r = this.settle(task, aResult);
+		if (r != null) {
+			this.putResult(r);
+		}
+	}
+
+	/*
+	 * Applies a result within this computer where possible. Returns the
+	 * result to be sent to the compute space, or null if there is none.
+	 */
+	private Result<?> settle(Task<?> task, Result<?> aResult) {
+		if (aResult == null) {
+			return null;
+		}
+		boolean local = comp.isLocallyComposed(task);
+		if (aResult.getSubTaskGenerator() != null) {
+			if (comp.composeLocally(task, aResult)) {
+				return null;
+			}
+			if (local) {
+				aResult = SequentialExecutor.complete(task, aResult);
+			} else {
+				aResult = expand(task, aResult);
+			}
+		}
+		if (aResult.getSubTasks() != null) {
+			if (comp.composeLocally(task, aResult)) {
+				return null;
+			}
+			if (local) {
+				aResult = SequentialExecutor.complete(task, aResult);
+			} else if (comp.isForwarding()) {
+				comp.hostSuccessor(task, aResult);
+			}
+		}
+		if (local) {
+			comp.putLocalValue(task, aResult);
+			return null;
+		}
+		if (aResult.getSubTasks() == null && task.getParentHost() != null) {
+			comp.forwardValue(task, aResult);
+			if (comp.isValueWanted(task)) {
+				// Tasks solving the same subproblem wait for the value in the
+				// compute space
+				return aResult;
+			}
+			// Only the ID of the task is reported to the compute space
+			return new ResultImpl<Object>(task.getId(), task.getParentId());
+		}
+		return aResult;
+	}
+
+	/*
+	 * Builds the lazily generated subtasks of a result that cannot be
+	 * composed locally, leaving out those that can be pruned. If all of them
+	 * are pruned, the task is composed right away.
+	 */
+	private static <T> Result<?> expand(Task<?> task, Result<T> aResult) {
+		List<Task<T>> subTasks = SubTaskCursor.generateAll(aResult
+				.getSubTaskGenerator());
+		aResult.setSubTaskGenerator(null);
+		aResult.setSubTasks(subTasks);
+		if (subTasks.isEmpty()) {
+			return SequentialExecutor.complete(task, aResult);
+		}
+		return aResult;
+	}
+
+	// Queues a result to be sent to the compute space
+	private synchronized void putResult(Result<?> aResult) {
 		this.resultQueue.add(aResult);
 		/*
 		 * Unpack the result object and check if subtasks can be added to the
 		 * local queue to mitigate communication latency in RMI on the compute
 		 * space
 		 */
-		
+		if (aResult instanceof BundleResult) {
+			for (Result<?> r : ((BundleResult) aResult).getResults()) {
+				this.queueSubTasks(r);
+			}
+		} else {
+			this.queueSubTasks(aResult);
+		}
+	}
+
+	// Queues subtasks locally as long as the local queue has room
+	private void queueSubTasks(Result<?> aResult) {
 		if (aResult.getSubTasks() != null) {
 			for (Task<?> t : aResult.getSubTasks()) {
 				try {
@@ -114,6 +231,13 @@ public class ResultSink implements Runnable {
 		return null;
 	}
 
+	/**
+	 * Drops all results not sent yet, once their computation is abandoned
+	 */
+	public synchronized void clear() {
+		this.resultQueue.clear();
+	}
+
 	/**
 	 * 
 	 * @return Size of queue
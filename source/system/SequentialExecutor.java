@@ -0,0 +1,87 @@
+package system;
+
+import java.util.List;
+import java.util.Vector;
+
+import api.Result;
+import api.SubTaskGenerator;
+import api.Task;
+
+/**
+ * Executes a task together with all the subtasks it decomposes into, on the
+ * calling thread, and returns only the final composed value. Computers use
+ * this to stop feeding new subtasks into the compute space while the space is
+ * under memory pressure.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ *
+ */
+public class SequentialExecutor {
+
+	private SequentialExecutor() {
+	}
+
+	/**
+	 *
+	 * @param task
+	 *            Task to be executed
+	 * @return Result carrying the value of the task; never carries subtasks.
+	 *         For a {@link system.TaskBundle TaskBundle}, the values of all
+	 *         tasks of the bundle.
+	 */
+	public static Result<?> execute(Task<?> task) {
+		if (task instanceof TaskBundle) {
+			return ((TaskBundle) task).execute(true);
+		}
+		Result<?> r = task.execute();
+		if (r == null
+				|| (r.getSubTasks() == null && r.getSubTaskGenerator() == null)) {
+			return r;
+		}
+		return complete(task, r);
+	}
+
+	/**
+	 * Completes a task whose Divide phase has already been executed. Lazily
+	 * generated subtasks are built one at a time, just before they are
+	 * executed. Int values of {@link api.IntFoldable IntFoldable} tasks are
+	 * folded without being boxed. The Conquer phase is executed by the
+	 * continuation of the task ({@link api.Task#getContinuation()}), so the
+	 * task itself is left as it was dispatched.
+	 *
+	 * @param task
+	 *            Task that produced the result
+	 * @param r
+	 *            Result carrying the subtasks of the task
+	 * @return Result carrying the value of the task
+	 */
+	public static Result<?> complete(Task<?> task, Result<?> r) {
+		List<Object> values = new Vector<Object>();
+		Task<?> continuation = task.getContinuation();
+		continuation.setComputer(task.getComputer());
+		IntAccumulator ints = new IntAccumulator(continuation);
+		SubTaskGenerator<?> generator = r.getSubTaskGenerator();
+		int size = (generator != null) ? generator.size() : r.getSubTasks()
+				.size();
+		for (int i = 0; i < size; i++) {
+			Task<?> child = (generator != null) ? generator.generate(i) : r
+					.getSubTasks().get(i);
+			if (child == null) {
+				continue;
+			}
+			child.setComputer(task.getComputer());
+			Result<?> childResult = execute(child);
+			if (ints.add(childResult)) {
+				continue;
+			}
+			// Pruned children do not contribute values, as in a Closure
+			if (childResult != null && childResult.getValue() != null) {
+				values.add(childResult.getValue());
+			}
+		}
+		ints.putValues(values);
+		continuation.setStatus(Task.Status.COMPOSE);
+		return continuation.execute();
+	}
+}
@@ -0,0 +1,81 @@
+package system;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.Vector;
+
+/**
+ * Consistent-hash ring that assigns every task ID to one of several sharded
+ * compute spaces. Each shard is placed on the ring many times (virtual
+ * nodes), so that task IDs are spread evenly and adding a shard only moves a
+ * small fraction of the IDs.
+ *
+ * The ring only depends on the names of the shards, so every space and every
+ * computer that builds a ring from the same names agrees on the owner of each
+ * task.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ *
+ */
+public class ShardRing implements Serializable {
+
+	private static final long serialVersionUID = 6021187593424937406L;
+
+	// Number of positions of each shard on the ring
+	private static final int VIRTUAL_NODES = 128;
+
+	private List<String> shards;
+	private TreeMap<Integer, String> ring;
+
+	/**
+	 *
+	 * @param shards
+	 *            Names of all shards
+	 */
+	public ShardRing(List<String> shards) {
+		this.shards = new Vector<String>(shards);
+		this.ring = new TreeMap<Integer, String>();
+		for (String shard : shards) {
+			for (int i = 0; i < VIRTUAL_NODES; i++) {
+				ring.put(hash(shard + "#" + i), shard);
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @param taskId
+	 *            ID of a task
+	 * @return Name of the shard that owns the task
+	 */
+	public String getOwner(String taskId) {
+		int h = hash(taskId);
+		SortedMap<Integer, String> tail = ring.tailMap(h);
+		if (tail.isEmpty()) {
+			return ring.firstEntry().getValue();
+		}
+		return tail.get(tail.firstKey());
+	}
+
+	/**
+	 *
+	 * @return Names of all shards
+	 */
+	public List<String> getShards() {
+		return new Vector<String>(shards);
+	}
+
+	// Spreads the bits of String.hashCode() over the whole ring
+	private static int hash(String key) {
+		int h = key.hashCode();
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return h;
+	}
+}
@@ -0,0 +1,187 @@
+package system;
+
+import java.net.MalformedURLException;
+import java.rmi.Naming;
+import java.rmi.NotBoundException;
+import java.rmi.RemoteException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+
+/**
+ * Routes tasks, values and results between sharded compute spaces. Each
+ * shard is named by the address (host:port) of its RMI registry, and owns
+ * the tasks that the {@link system.ShardRing ShardRing} assigns to that name.
+ *
+ * Shards are configured with the system property <code>space.shards</code>
+ * (comma-separated addresses of all shards) and, optionally,
+ * <code>space.shard</code> (address of this shard, by default the entry of
+ * <code>space.shards</code> ending with the port of this shard).
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ *
+ */
+public class ShardRouter {
+
+	private String self;
+	private ShardRing ring;
+	private Map<String, Space2Space> peers;
+	private volatile String clientShard;
+
+	/**
+	 *
+	 * @param self
+	 *            Name of this shard
+	 * @param shards
+	 *            Names of all shards, including this one
+	 */
+	public ShardRouter(String self, List<String> shards) {
+		this.self = self;
+		this.ring = new ShardRing(shards);
+		this.peers = new HashMap<String, Space2Space>();
+		this.clientShard = self;
+	}
+
+	/**
+	 *
+	 * @param port
+	 *            Port of the RMI registry of this shard
+	 * @return Router configured from the system properties, or null if the
+	 *         space is not sharded
+	 */
+	public static ShardRouter fromSystemProperties(int port) {
+		String shardList = System.getProperty("space.shards", "").trim();
+		if (shardList.length() == 0) {
+			return null;
+		}
+		List<String> shards = new Vector<String>();
+		for (String shard : Arrays.asList(shardList.split(","))) {
+			shards.add(shard.trim());
+		}
+		String self = System.getProperty("space.shard");
+		if (self == null) {
+			for (String shard : shards) {
+				if (shard.endsWith(":" + port)) {
+					self = shard;
+				}
+			}
+		}
+		if (self == null || !shards.contains(self)) {
+			throw new IllegalArgumentException("This space (port " + port
+					+ ") is not one of the shards " + shards);
+		}
+		return new ShardRouter(self, shards);
+	}
+
+	/**
+	 *
+	 * @param taskId
+	 *            ID of a task
+	 * @return true if the task is owned by this shard
+	 */
+	public boolean isLocal(String taskId) {
+		return self.equals(ring.getOwner(taskId));
+	}
+
+	/**
+	 *
+	 * @param taskId
+	 *            ID of a task
+	 * @return Name of the shard that owns the task
+	 */
+	public String getOwner(String taskId) {
+		return ring.getOwner(taskId);
+	}
+
+	/**
+	 *
+	 * @return Name of this shard
+	 */
+	public String getSelf() {
+		return self;
+	}
+
+	/**
+	 *
+	 * @return Ring shared by all shards
+	 */
+	public ShardRing getRing() {
+		return ring;
+	}
+
+	/**
+	 *
+	 * @return Names of all other shards
+	 */
+	public List<String> getPeerNames() {
+		List<String> names = ring.getShards();
+		names.remove(self);
+		return names;
+	}
+
+	/**
+	 *
+	 * @param shard
+	 *            Name of another shard
+	 * @return Remote reference to the shard
+	 * @throws RemoteException
+	 *             if the shard cannot be reached
+	 */
+	public synchronized Space2Space getPeer(String shard)
+			throws RemoteException {
+		Space2Space peer = peers.get(shard);
+		if (peer == null) {
+			try {
+				peer = (Space2Space) Naming.lookup("//" + shard + "/"
+						+ Computer2Space.SERVICE_NAME);
+			} catch (MalformedURLException e) {
+				throw new RemoteException("Invalid shard " + shard, e);
+			} catch (NotBoundException e) {
+				throw new RemoteException("Shard " + shard
+						+ " is not running", e);
+			}
+			peers.put(shard, peer);
+		}
+		return peer;
+	}
+
+	/**
+	 *
+	 * @param space
+	 *            This shard
+	 * @return Remote references to all shards, as seen by computers
+	 * @throws RemoteException
+	 *             if a shard cannot be reached
+	 */
+	public Map<String, Computer2Space> getSpaces(SpaceImpl space)
+			throws RemoteException {
+		Map<String, Computer2Space> spaces = new HashMap<String, Computer2Space>();
+		spaces.put(self, space);
+		for (String shard : this.getPeerNames()) {
+			spaces.put(shard, (Computer2Space) this.getPeer(shard));
+		}
+		return spaces;
+	}
+
+	/**
+	 *
+	 * @param clientShard
+	 *            Name of the shard whose client waits for the computation in
+	 *            progress
+	 */
+	public void setClientShard(String clientShard) {
+		this.clientShard = clientShard;
+	}
+
+	/**
+	 *
+	 * @return Name of the shard whose client waits for the computation in
+	 *         progress
+	 */
+	public String getClientShard() {
+		return clientShard;
+	}
+}
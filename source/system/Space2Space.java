@@ -0,0 +1,90 @@
+package system;
+
+import java.rmi.RemoteException;
+import java.util.List;
+
+import api.Result;
+import api.Task;
+
+/**
+ * A compute space's abstraction of its peers when several compute spaces
+ * share a computation. Every peer owns the tasks that the
+ * {@link system.ShardRing ShardRing} assigns to it: it queues them, dispatches
+ * them to computers, receives their results and holds their successors.
+ * 
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ * 
+ */
+public interface Space2Space extends java.rmi.Remote {
+
+	/**
+	 * Used by a peer to hand over ready tasks owned by this space
+	 *
+	 * @param tasks
+	 *            Tasks to be added to the ready queue of this space
+	 * @throws RemoteException
+	 */
+	void submitTasks(List<Task<?>> tasks) throws RemoteException;
+
+	/**
+	 * Used by a peer to hand over tasks owned by this space that a computer
+	 * has already queued locally (to avoid communication latency), so that
+	 * this space expects their results from that computer
+	 *
+	 * @param computerId
+	 *            ID of the computer holding the tasks
+	 * @param tasks
+	 *            Tasks queued in the computer
+	 * @throws RemoteException
+	 */
+	void adoptTasks(String computerId, List<Task<?>> tasks)
+			throws RemoteException;
+
+	/**
+	 * Used by a peer to deliver the value of a task to the successor of its
+	 * parent, which is held by this space
+	 *
+	 * @param parentId
+	 *            ID of the waiting parent task
+	 * @param childId
+	 *            ID of the task that produced the value
+	 * @param value
+	 *            Value of the task (null if the task was pruned)
+	 * @throws RemoteException
+	 */
+	void deliverValue(String parentId, String childId, Object value)
+			throws RemoteException;
+
+	/**
+	 * Used by the peer that accepted a computation from a client to announce
+	 * the computation to all other peers
+	 *
+	 * @param shared
+	 *            Shared object of the computation
+	 * @param clientShard
+	 *            Name of the peer waiting for the final result
+	 * @throws RemoteException
+	 */
+	void beginJob(Shared<?> shared, String clientShard) throws RemoteException;
+
+	/**
+	 * Used by a peer to communicate a newer shared object, which the peer has
+	 * already propagated to all computers
+	 *
+	 * @param shared
+	 *            Newer shared object
+	 * @throws RemoteException
+	 */
+	void publishShared(Shared<?> shared) throws RemoteException;
+
+	/**
+	 * Used by the peer owning the root task to return the final result to
+	 * the peer whose client is waiting for it
+	 *
+	 * @param result
+	 *            Final result of the computation
+	 * @throws RemoteException
+	 */
+	void returnResult(Result<?> result) throws RemoteException;
+}
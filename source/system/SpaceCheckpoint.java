@@ -0,0 +1,282 @@
+package system;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+
+import api.Result;
+import api.Task;
+
+/**
+ * A compact, serializable image of the state of a compute space. It is
+ * written periodically by the {@link system.SpaceJournal SpaceJournal} as a
+ * snapshot, and rebuilt after a restart by replaying the records of the
+ * journal on top of the last snapshot.
+ *
+ * Tasks that were queued or running in computers at the time of the snapshot
+ * are treated as pending tasks, since the computers that held them have to
+ * register again after a restart.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ *
+ */
+public class SpaceCheckpoint implements Serializable {
+
+	private static final long serialVersionUID = 4391937412480126245L;
+	private String rootId;
+	private String rootClassName;
+	private Shared<?> shared;
+	private Map<String, Task<?>> pendingTasks;
+	private Map<String, WaitingTask> waitingTasks;
+	// Successors rebuilt while replaying the journal on top of the snapshot
+	private transient Map<String, Successor> replayed;
+
+	/**
+	 * Creates an empty checkpoint
+	 */
+	public SpaceCheckpoint() {
+		this.pendingTasks = new LinkedHashMap<String, Task<?>>();
+		this.waitingTasks = new HashMap<String, WaitingTask>();
+	}
+
+	/**
+	 * Starts a new computation, discarding the previous one (if any)
+	 *
+	 * @param root
+	 *            Root task submitted by the client
+	 * @param shared
+	 *            Shared object submitted by the client
+	 */
+	public void startJob(Task<?> root, Shared<?> shared) {
+		this.clearJob();
+		this.rootId = root.getId();
+		this.rootClassName = root.getClass().getName();
+		this.shared = shared;
+		this.pendingTasks.put(root.getId(), root);
+	}
+
+	/**
+	 * Applies a result accepted by the compute space. Mirrors the way
+	 * {@link system.SpaceImpl#sendResult(Result, String)
+	 * SpaceImpl.sendResult()} handles results: the values of child tasks are
+	 * handed to a {@link system.Successor Successor} of their parent, so that
+	 * they are folded ({@link api.Foldable Foldable}, {@link api.IntFoldable
+	 * IntFoldable}) and counted (values of pruned tasks are null) exactly as
+	 * in the compute space.
+	 *
+	 * @param result
+	 *            Result accepted by the compute space
+	 */
+	public void applyResult(Result<?> result) {
+		if (result instanceof BundleResult) {
+			for (Result<?> r : ((BundleResult) result).getResults()) {
+				this.applyResult(r);
+			}
+			return;
+		}
+		if (result.isApproximate()) {
+			// The computation ran out of time and was abandoned
+			this.clearJob();
+			return;
+		}
+		Task<?> t = pendingTasks.remove(result.getId());
+		if (t == null) {
+			return;
+		}
+		if (result.getSubTasks() != null) {
+			this.getReplayed().put(t.getId(), new Successor(t,
+					new ReplayHost(), result.getSubTasks().size()));
+			for (Task<?> task : result.getSubTasks()) {
+				pendingTasks.put(task.getId(), task);
+			}
+		} else if (result.getValue() != null
+				&& t.getId().equals(t.getParentId())) {
+			// The computation is over
+			this.clearJob();
+		} else {
+			Successor parent = this.takeSuccessor(t.getParentId());
+			if (parent != null) {
+				parent.getClosure().putResult(t.getId(), result);
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @param shared
+	 *            New shared object accepted by the compute space
+	 */
+	public void setShared(Shared<?> shared) {
+		this.shared = shared;
+	}
+
+	/**
+	 *
+	 * @return The shared object of the computation
+	 */
+	public Shared<?> getShared() {
+		return shared;
+	}
+
+	/**
+	 *
+	 * @return true if a computation was in progress
+	 */
+	public boolean hasJob() {
+		return rootId != null;
+	}
+
+	/**
+	 *
+	 * @return ID of the root task of the computation in progress
+	 */
+	public String getRootId() {
+		return rootId;
+	}
+
+	/**
+	 *
+	 * @return Class name of the root task of the computation in progress
+	 */
+	public String getRootClassName() {
+		return rootClassName;
+	}
+
+	/**
+	 *
+	 * @return Tasks that have to be dispatched to computers
+	 */
+	public List<Task<?>> getPendingTasks() {
+		return new Vector<Task<?>>(pendingTasks.values());
+	}
+
+	/**
+	 *
+	 * @param host
+	 *            Compute space to which the waiting tasks will belong
+	 * @return Successors of all tasks that are waiting for the results of
+	 *         their children
+	 */
+	public List<Successor> getSuccessors(SuccessorHost host) {
+		List<Successor> successors = new Vector<Successor>();
+		for (WaitingTask w : waitingTasks.values()) {
+			successors.add(new Successor(w.task, host, w.joinCounter,
+					w.values, w.arrivedIds));
+		}
+		for (Successor s : this.getReplayed().values()) {
+			Successor.Closure c = s.getClosure();
+			successors.add(new Successor(s.getTask(), host, c
+					.getJoinCounter(), c.getValues(), c.getArrivedIds()));
+		}
+		return successors;
+	}
+
+	/**
+	 * Records a task that is either ready or outstanding in a computer
+	 *
+	 * @param task
+	 *            Task to be recorded
+	 */
+	void addPendingTask(Task<?> task) {
+		pendingTasks.put(task.getId(), task);
+	}
+
+	/**
+	 * Records a task that waits for the results of its children
+	 *
+	 * @param s
+	 *            Successor of the task
+	 */
+	void addSuccessor(Successor s) {
+		Successor.Closure c = s.getClosure();
+		synchronized (c) {
+			WaitingTask w = new WaitingTask(s.getTask(), c.getJoinCounter());
+			w.values.addAll(c.getValues());
+			w.arrivedIds.addAll(c.getArrivedIds());
+			waitingTasks.put(s.getId(), w);
+		}
+	}
+
+	/**
+	 * Records the root of the computation in progress
+	 *
+	 * @param rootId
+	 *            ID of the root task
+	 * @param rootClassName
+	 *            Class name of the root task
+	 */
+	void setRoot(String rootId, String rootClassName) {
+		this.rootId = rootId;
+		this.rootClassName = rootClassName;
+	}
+
+	// Forgets the computation in progress
+	private void clearJob() {
+		this.rootId = null;
+		this.rootClassName = null;
+		this.pendingTasks.clear();
+		this.waitingTasks.clear();
+		this.getReplayed().clear();
+	}
+
+	private Map<String, Successor> getReplayed() {
+		if (replayed == null) {
+			replayed = new HashMap<String, Successor>();
+		}
+		return replayed;
+	}
+
+	// Successor of a task, rebuilt from the snapshot if needed
+	private Successor takeSuccessor(String id) {
+		Successor s = this.getReplayed().get(id);
+		if (s != null) {
+			return s;
+		}
+		WaitingTask w = waitingTasks.remove(id);
+		if (w == null) {
+			return null;
+		}
+		s = new Successor(w.task, new ReplayHost(), w.joinCounter, w.values,
+				w.arrivedIds);
+		replayed.put(id, s);
+		return s;
+	}
+
+	// Takes the tasks released by successors while replaying the journal
+	private class ReplayHost implements SuccessorHost {
+
+		@Override
+		public boolean put(Task<?> aTask) {
+			pendingTasks.put(aTask.getId(), aTask);
+			return true;
+		}
+
+		@Override
+		public void removeFromWaitQ(Task<?> task) {
+			getReplayed().remove(task.getId());
+		}
+	}
+
+	// A task and the values received so far from its children
+	private static class WaitingTask implements Serializable {
+
+		private static final long serialVersionUID = -5163907616417399453L;
+		private Task<?> task;
+		private int joinCounter;
+		private List<Object> values;
+		private Set<String> arrivedIds;
+
+		private WaitingTask(Task<?> task, int joinCounter) {
+			this.task = task;
+			this.joinCounter = joinCounter;
+			this.values = new Vector<Object>();
+			this.arrivedIds = new HashSet<String>();
+		}
+	}
+}
@@ -1,20 +1,26 @@
 package system;
 
-import java.net.MalformedURLException;
-import java.rmi.Naming;
-import java.rmi.NotBoundException;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.rmi.MarshalException;
+import java.rmi.MarshalledObject;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
 import java.util.Map.Entry;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import system.Successor.Closure;
 import api.Client2Space;
@@ -41,23 +47,67 @@ import api.Task;
  * 
  */
 public class SpaceImpl extends UnicastRemoteObject implements Client2Space,
-		Computer2Space, Runnable {
+		Computer2Space, Space2Space, SuccessorHost, Runnable {
 
 	private Thread t;
 	private static final long serialVersionUID = 3093568798450948074L;
 	private Map<String, Successor> waitingTasks;
-	private List<Task<?>> readyTasks;
+	private ReadyQueue readyTasks;
 	private LinkedBlockingQueue<Result<?>> results;
 	private Map<ComputerProxy, Integer> proxies;
-	private static final int PORT_NUMBER = 3672;
-	private static final int MIN_COMP_QSIZE = 500;
+	private static final int PORT_NUMBER = Integer.getInteger("space.port",
+			3672);
 	private Shared<?> shared;
 	private Map<String, ComputerProxy> IdProxyMap;
 	private static final int TASK_QUEUE_MAX_SIZE = 1000;
 	private static final int TASK_QUEUE_MIN_SIZE = 1;
 	private static final int MIN_PROCESSORS = 1;
+	// Time between two checks of the dispatchers
+	private static final long SUPERVISOR_INTERVAL = 1000;
+	// Maximum number of fine-grained tasks dispatched as a single bundle
+	private static final int BUNDLE_SIZE = Integer.getInteger(
+			"space.bundle.size", 32);
+	// Lets computers hold successors and forward values among themselves
+	private static final boolean FORWARDING = Boolean.parseBoolean(System
+			.getProperty("space.forwarding", "true"));
+	// Number of undispatched subtasks of a computer above which they may be
+	// dispatched to other computers
+	private static final int IMBALANCE_THRESHOLD = Integer.getInteger(
+			"space.locality.imbalance", 16);
+	// Share of a time budget after which tasks stop splitting
+	private static final int WIND_DOWN_PERCENT = Integer.getInteger(
+			"space.budget.winddown", 75);
+	// Maximum number of tasks of a stream held by the space, counting those
+	// whose results have not been taken by the client yet
+	private static final int STREAM_WINDOW = Integer.getInteger(
+			"space.stream.window", 256);
+	// Tasks of a stream are roots on level 0, each in a namespace of its own
+	// that all its subtasks carry (tasks.TaskBase#getChildIds()), so that
+	// no two trees share IDs with each other or with a single computation
+	private static final String STREAM_ID_PREFIX = "0-0-";
 	private boolean latencySwitch;
 	private boolean mcoreSwitch;
+	private TaskTimer taskTimer;
+	private StragglerMonitor stragglerMonitor;
+	private PressureMonitor pressureMonitor;
+	private GranularityMonitor granularityMonitor;
+	private SpaceJournal journal;
+	private ReentrantReadWriteLock stateLock;
+	private String jobRootId;
+	private String jobRootClass;
+	private boolean jobRecovered;
+	private volatile boolean jobAbandoned;
+	private ShardRouter router;
+	private LocalityStats locality;
+	private ComposeExecutor composeExecutor;
+	private SubproblemTable subproblems;
+	private volatile ComputerImpl localComputer;
+	private Map<ComputerProxy, Dispatcher> dispatchers;
+	private final Object dispatchSignal = new Object();
+	private long dispatchEpoch;
+	private Set<String> streamIds;
+	private LinkedBlockingQueue<Result<?>> streamResults;
+	private int streamCount;
 
 	// private static final int DEFAULT_QUEUE_SIZE = 1000;
 
@@ -67,19 +117,141 @@ public class SpaceImpl extends UnicastRemoteObject implements Client2Space,
 	 * @throws RemoteException
 	 */
 	public SpaceImpl() throws RemoteException {
+		this(null);
+	}
+
+	/**
+	 * Creates a compute space whose state is journaled in the given directory.
+	 * If the directory holds the journal of a previous instance, the
+	 * computation in progress is recovered and resumes as soon as computers
+	 * register. A journaled space neither forwards values to computers
+	 * holding successors nor lets tasks wait for others solving the same
+	 * subproblem, since neither is recorded by the journal.
+	 * 
+	 * @param journalDirectory
+	 *            Directory holding the journal, or null to disable journaling
+	 * @throws RemoteException
+	 */
+	public SpaceImpl(File journalDirectory) throws RemoteException {
 
 		this.waitingTasks = Collections
 				.synchronizedMap(new HashMap<String, Successor>());
 		this.results = new LinkedBlockingQueue<Result<?>>();
+		this.streamIds = new HashSet<String>();
+		this.streamResults = new LinkedBlockingQueue<Result<?>>();
 		this.proxies = Collections
 				.synchronizedMap(new HashMap<ComputerProxy, Integer>());
-		this.readyTasks = new Vector<Task<?>>();
+		this.readyTasks = new ReadyQueue();
 		this.IdProxyMap = Collections
 				.synchronizedMap(new HashMap<String, ComputerProxy>());
+		this.taskTimer = new TaskTimer();
+		this.stragglerMonitor = new StragglerMonitor(this);
+		this.pressureMonitor = new PressureMonitor(this);
+		this.granularityMonitor = new GranularityMonitor(this);
+		this.stateLock = new ReentrantReadWriteLock();
+		if (!FORWARDING || journalDirectory != null) {
+			// Otherwise successors are held by computers, which compose
+			// their tasks themselves
+			this.composeExecutor = new ComposeExecutor(this);
+		}
+		this.subproblems = new SubproblemTable(this);
+		this.dispatchers = Collections
+				.synchronizedMap(new HashMap<ComputerProxy, Dispatcher>());
+		this.locality = new LocalityStats("SpaceImpl", "affine", "global",
+				"redistributed");
+		if (journalDirectory != null) {
+			try {
+				this.journal = new SpaceJournal(journalDirectory);
+				this.restore(journal.recover());
+			} catch (IOException e) {
+				throw new RemoteException("Unable to recover journal in "
+						+ journalDirectory, e);
+			}
+			this.checkpoint();
+			this.journal.start(this);
+		}
 		t = new Thread(this, "Space");
 		t.start();
 	}
 
+	// Rebuilds the state of a computation recovered from the journal
+	private void restore(SpaceCheckpoint checkpoint) {
+		this.shared = checkpoint.getShared();
+		if (!checkpoint.hasJob()) {
+			return;
+		}
+		for (Successor s : checkpoint.getSuccessors(this)) {
+			this.addSuccessor(s);
+		}
+		for (Task<?> task : checkpoint.getPendingTasks()) {
+			task.setQueuingStatus(Task.QueuingStatus.NOT_QUEUED);
+			readyTasks.add(task);
+		}
+		this.jobRootId = checkpoint.getRootId();
+		this.jobRootClass = checkpoint.getRootClassName();
+		this.jobRecovered = true;
+		System.out.println("SpaceImpl -> Recovered computation of "
+				+ jobRootClass + " : " + readyTasks.size()
+				+ " pending task(s), " + waitingTasks.size()
+				+ " waiting task(s)");
+	}
+
+	/**
+	 * Writes a snapshot of the state of this space to the journal. The state
+	 * is frozen while it is being captured.
+	 */
+	void checkpoint() {
+		byte[] bytes;
+		long generation;
+		stateLock.writeLock().lock();
+		try {
+			SpaceCheckpoint checkpoint = new SpaceCheckpoint();
+			checkpoint.setShared(shared);
+			if (jobRootClass != null) {
+				checkpoint.setRoot(jobRootId, jobRootClass);
+				for (Task<?> task : readyTasks.toList()) {
+					checkpoint.addPendingTask(task);
+				}
+				for (ComputerProxy cp : this.getProxies()) {
+					for (Task<?> task : cp.getTaskQueue()) {
+						checkpoint.addPendingTask(task);
+					}
+					for (Task<?> task : cp.getAffineTasks()) {
+						checkpoint.addPendingTask(task);
+					}
+				}
+				if (composeExecutor != null) {
+					for (Task<?> task : composeExecutor.getPendingTasks()) {
+						checkpoint.addPendingTask(task);
+					}
+				}
+				synchronized (waitingTasks) {
+					for (Successor s : waitingTasks.values()) {
+						checkpoint.addSuccessor(s);
+					}
+				}
+			}
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			ObjectOutputStream oos = new ObjectOutputStream(out);
+			oos.writeObject(checkpoint);
+			oos.close();
+			bytes = out.toByteArray();
+			generation = journal.beginCheckpoint();
+		} catch (IOException e) {
+			System.err.println("SpaceImpl -> Unable to capture snapshot");
+			e.printStackTrace();
+			return;
+		} finally {
+			stateLock.writeLock().unlock();
+		}
+		try {
+			journal.completeCheckpoint(generation, bytes);
+		} catch (IOException e) {
+			System.err.println("SpaceImpl -> Unable to write snapshot");
+			e.printStackTrace();
+		}
+	}
+
 	/**
 	 * 
 	 * @param aTask Task to be added to ready queue
@@ -88,15 +260,34 @@ public class SpaceImpl extends UnicastRemoteObject implements Client2Space,
 	 */
 	public boolean put(Task<?> aTask) throws RemoteException {
 		if (proxies.size() > 0) {
-			synchronized (readyTasks) {
-				readyTasks.add(aTask);
+			if (composeExecutor != null && composeExecutor.accepts(aTask)) {
+				composeExecutor.submit(aTask);
+				return true;
 			}
+			this.enqueue(aTask);
 			return true;
 		}
 
 		return false;
 	}
 
+	/**
+	 * Adds a task to the ready queue, even if no computer has registered yet
+	 * 
+	 * @param aTask
+	 *            Task to be added to ready queue
+	 */
+	protected void enqueue(Task<?> aTask) {
+		if (pressureMonitor.isUnderPressure()
+				&& aTask.getStatus() == Task.Status.COMPOSE) {
+			// Let waiting tasks drain before decomposing further
+			readyTasks.addUrgent(aTask);
+		} else {
+			readyTasks.add(aTask);
+		}
+		this.signalDispatch();
+	}
+
 	/**
 	 * @see api.Client2Space#compute(Task, Shared) Client2Space.compute(Task,
 	 *      Shared)
@@ -104,40 +295,329 @@ public class SpaceImpl extends UnicastRemoteObject implements Client2Space,
 
 	public Result<?> compute(Task<?> aTask, Shared<?> shared)
 			throws java.rmi.RemoteException {
+		return this.compute(aTask, shared, 0);
+	}
+
+	/**
+	 * @see api.Client2Space#compute(Task, Shared, long)
+	 *      Client2Space.compute(Task, Shared, long)
+	 */
+	public Result<?> compute(Task<?> aTask, Shared<?> shared, long timeBudget)
+			throws java.rmi.RemoteException {
+		long startTime = System.currentTimeMillis();
 
 		if (this.latencySwitch && aTask instanceof SpaceRunnable) {
 			registerLocalComputer();
 		}
-		this.shared = shared;
-		for (Entry<String, ComputerProxy> e : this.IdProxyMap.entrySet()) {
-			e.getValue().setShared(shared);
+
+		boolean started;
+		stateLock.readLock().lock();
+		try {
+			if (jobRecovered
+					&& aTask.getClass().getName().equals(jobRootClass)) {
+				// Attach to the computation recovered from the journal
+				System.out.println("SpaceImpl -> Resuming recovered computation of "
+						+ jobRootClass);
+				jobRecovered = false;
+				started = true;
+			} else {
+				if (jobRecovered) {
+					System.out.println("SpaceImpl -> Discarding recovered computation of "
+							+ jobRootClass);
+					this.discardRecoveredJob();
+				}
+				this.shared = shared;
+				this.jobAbandoned = false;
+				results.clear();
+				subproblems.clear();
+				for (Entry<String, ComputerProxy> e : this.IdProxyMap
+						.entrySet()) {
+					e.getValue().setShared(shared);
+				}
+				if (router == null) {
+					Result<?> cached = subproblems.lookUp(aTask);
+					if (cached != null) {
+						System.out.println("SpaceImpl -> Returning cached result of "
+								+ aTask.getClass().getName());
+						return cached;
+					}
+					started = this.put(aTask);
+				} else {
+					started = this.startShardedJob(aTask, shared);
+				}
+				if (started) {
+					this.jobRootId = aTask.getId();
+					this.jobRootClass = aTask.getClass().getName();
+					if (journal != null) {
+						journal.logJob(aTask, shared);
+					}
+				}
+			}
+		} finally {
+			stateLock.readLock().unlock();
 		}
 
-		if (this.put(aTask)) {
+		if (started) {
 			try {
-				return results.take();
+				if (timeBudget <= 0) {
+					return results.take();
+				}
+				granularityMonitor.setSplitDeadline(startTime + timeBudget
+						* WIND_DOWN_PERCENT / 100);
+				Result<?> result = results.poll(startTime + timeBudget
+						- System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+				if (result == null) {
+					result = this.abandonJob(aTask);
+				}
+				return result;
 			} catch (InterruptedException e) {
 				e.printStackTrace();
+			} finally {
+				if (timeBudget > 0) {
+					granularityMonitor.setSplitDeadline(Long.MAX_VALUE);
+				}
+				stragglerMonitor.clear();
 			}
 		}
 		return null;
 	}
 
+	/*
+	 * Gives up on a computation whose time budget is spent, and returns the
+	 * best solution held by the shared object as an approximate result. The
+	 * shared object is closed, so that tasks still running are pruned, and
+	 * tasks still queued and successors held by computers are dropped.
+	 * Results of the computation that arrive later are discarded.
+	 */
+	private Result<?> abandonJob(Task<?> root) throws RemoteException {
+		Shared<?> latest = this.closeShared();
+		for (ComputerProxy cp : this.getProxies()) {
+			try {
+				cp.setShared(latest);
+			} catch (RemoteException e) {
+				System.err.println("SpaceImpl -> Computer " + cp.getId()
+						+ " is not reachable");
+			}
+		}
+		if (router != null) {
+			for (String shard : router.getPeerNames()) {
+				router.getPeer(shard).publishShared(latest);
+			}
+		}
+		Result<Object> approximate = new ResultImpl<Object>(root.getId(), root
+				.getParentId());
+		if (latest instanceof Incumbent) {
+			approximate.setValue(((Incumbent) latest).getSolution());
+		}
+		approximate.setApproximate(true);
+		stateLock.readLock().lock();
+		try {
+			this.jobAbandoned = true;
+			Result<?> late = results.poll();
+			if (late != null) {
+				// The computation finished just in time
+				return late;
+			}
+			if (journal != null) {
+				journal.logResult(approximate);
+			}
+			readyTasks.clear();
+			for (ComputerProxy cp : this.getProxies()) {
+				cp.clearAffineTasks();
+				cp.clearTasks();
+			}
+			waitingTasks.clear();
+			subproblems.clear();
+			jobRootId = null;
+			jobRootClass = null;
+		} finally {
+			stateLock.readLock().unlock();
+		}
+		for (ComputerProxy cp : this.getProxies()) {
+			try {
+				// Successors held by computers must not take values of the
+				// next computation
+				cp.getCompObj().abandonJob();
+			} catch (RemoteException e) {
+				System.err.println("SpaceImpl -> Unable to cancel tasks in "
+						+ cp.getId());
+			}
+		}
+		System.out.println("SpaceImpl -> Time budget spent, returning "
+				+ (approximate.getValue() == null ? "no solution"
+						: "best known solution") + " of "
+				+ root.getClass().getName());
+		return approximate;
+	}
+
+	// Closes an incumbent, so that no solution can replace it any more
+	private synchronized Shared<?> closeShared() {
+		if (this.shared instanceof Incumbent) {
+			this.shared = ((Incumbent) this.shared).close();
+		}
+		return this.shared;
+	}
+
+	// Drops the state of a recovered computation that no client resumed
+	private void discardRecoveredJob() {
+		readyTasks.clear();
+		for (ComputerProxy cp : this.getProxies()) {
+			cp.clearAffineTasks();
+		}
+		waitingTasks.clear();
+		subproblems.clear();
+		results.clear();
+		jobRecovered = false;
+		jobRootId = null;
+		jobRootClass = null;
+	}
+
 	/**
-	 * 
+	 * @see api.Client2Space#beginStream(Shared) Client2Space.beginStream(Shared)
 	 */
-	private void registerLocalComputer() {
+	public void beginStream(Shared<?> shared) throws RemoteException {
+		stateLock.readLock().lock();
+		try {
+			if (jobRecovered) {
+				System.out.println("SpaceImpl -> Discarding recovered computation of "
+						+ jobRootClass);
+				this.discardRecoveredJob();
+			}
+			this.shared = shared;
+			this.jobAbandoned = false;
+			subproblems.clear();
+			for (ComputerProxy cp : this.getProxies()) {
+				cp.setShared(shared);
+			}
+			if (router != null) {
+				router.setClientShard(router.getSelf());
+				for (String shard : router.getPeerNames()) {
+					router.getPeer(shard).beginJob(shared, router.getSelf());
+				}
+			}
+			synchronized (streamIds) {
+				streamIds.clear();
+				streamResults.clear();
+			}
+		} finally {
+			stateLock.readLock().unlock();
+		}
+		System.out.println("SpaceImpl -> Beginning stream of tasks");
+	}
 
-		if (System.getSecurityManager() == null) {
-			System.setSecurityManager(new SecurityManager());
+	/**
+	 * Each task accepted is given an ID of its own and becomes the root of a
+	 * computation. Tasks owned by other shards are handed over to them.
+	 *
+	 * @see api.Client2Space#submit(List) Client2Space.submit(List)
+	 */
+	public List<String> submit(List<Task<?>> tasks) throws RemoteException {
+		List<String> ids = new Vector<String>();
+		if (tasks.isEmpty()) {
+			return ids;
 		}
+		if (this.latencySwitch && tasks.get(0) instanceof SpaceRunnable) {
+			registerLocalComputer();
+		}
+		Map<String, List<Task<?>>> byOwner = new HashMap<String, List<Task<?>>>();
+		stateLock.readLock().lock();
 		try {
+			for (Task<?> task : tasks) {
+				String id;
+				synchronized (streamIds) {
+					if (streamIds.size() >= STREAM_WINDOW) {
+						break;
+					}
+					id = STREAM_ID_PREFIX + (++streamCount);
+					streamIds.add(id);
+				}
+				task.setId(id);
+				task.setParentId(id);
+				ids.add(id);
+				if (router != null && !router.isLocal(id)) {
+					String owner = router.getOwner(id);
+					List<Task<?>> owned = byOwner.get(owner);
+					if (owned == null) {
+						owned = new Vector<Task<?>>();
+						byOwner.put(owner, owned);
+					}
+					owned.add(task);
+					continue;
+				}
+				Result<?> cached = (router == null) ? subproblems.lookUp(task)
+						: null;
+				if (cached != null) {
+					this.putResult(cached);
+				} else if (!this.put(task)) {
+					// Computers that register later will pick it up
+					this.enqueue(task);
+				}
+			}
+		} finally {
+			stateLock.readLock().unlock();
+		}
+		for (Entry<String, List<Task<?>>> e : byOwner.entrySet()) {
+			router.getPeer(e.getKey()).submitTasks(e.getValue());
+		}
+		return ids;
+	}
 
-			Computer2Space space = (Computer2Space) Naming.lookup("//"
-					+ "localhost:" + PORT_NUMBER + "/"
-					+ Computer2Space.SERVICE_NAME);
-			ComputerImpl comp = new ComputerImpl(space);
-			space.register(comp, comp.getId(), MIN_PROCESSORS);
+	/**
+	 * Taking results frees room for further tasks of the stream
+	 *
+	 * @see api.Client2Space#takeResults(int) Client2Space.takeResults(int)
+	 */
+	public List<Result<?>> takeResults(int maxResults) throws RemoteException {
+		List<Result<?>> taken = new Vector<Result<?>>();
+		try {
+			Result<?> first = null;
+			while (first == null) {
+				synchronized (streamIds) {
+					if (streamIds.isEmpty()) {
+						return taken;
+					}
+				}
+				first = streamResults.poll(SUPERVISOR_INTERVAL,
+						TimeUnit.MILLISECONDS);
+			}
+			taken.add(first);
+			streamResults.drainTo(taken, maxResults - 1);
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+		synchronized (streamIds) {
+			for (Result<?> r : taken) {
+				streamIds.remove(r.getId());
+			}
+		}
+		return taken;
+	}
+
+	// Tasks of the current stream are roots whose results go to the client
+	private boolean isStreamed(String taskId) {
+		synchronized (streamIds) {
+			return streamIds.contains(taskId);
+		}
+	}
+
+	/**
+	 * Starts a computer inside the JVM of this space, the first time a
+	 * {@link system.SpaceRunnable SpaceRunnable} task is computed. The
+	 * computer and this space refer to each other directly, so tasks and
+	 * results are passed between them without RMI. The computer only executes
+	 * SpaceRunnable tasks.
+	 */
+	private synchronized void registerLocalComputer() {
+		if (this.localComputer != null) {
+			return;
+		}
+		ComputerImpl comp = null;
+		try {
+			comp = new ComputerImpl(this);
+			// Known before its dispatcher starts taking tasks
+			this.localComputer = comp;
+			this.register(comp, comp.getId(), MIN_PROCESSORS);
+			comp.joinShards();
 			System.out.println("SpaceImpl -> Queue Size of " + comp.getId()
 					+ " = " + comp.getTaskQueueMaxSize());
 			System.out.println("SpaceImpl -> Local Computer ready : "
@@ -145,15 +625,58 @@ public class SpaceImpl extends UnicastRemoteObject implements Client2Space,
 		} catch (RemoteException e) {
 			System.err.println("ComputerImpl Remote exception : ");
 			e.printStackTrace();
-
-		} catch (MalformedURLException e) {
-			System.err.println("ComputerImpl Malformed exception : ");
-			e.printStackTrace();
-		} catch (NotBoundException e) {
-			System.err.println("ComputerImpl NotBound exception : ");
-			e.printStackTrace();
+			this.localComputer = null;
 		}
+	}
+
+	/**
+	 * 
+	 * @param cp
+	 *            Proxy of a computer
+	 * @param t
+	 *            Task about to be dispatched
+	 * @return false if the computer runs in the JVM of this space and the
+	 *         task is not marked as {@link system.SpaceRunnable SpaceRunnable}
+	 */
+	boolean accepts(ComputerProxy cp, Task<?> t) {
+		return this.getAcceptedType(cp).isInstance(t);
+	}
 
+	// The computer running in the JVM of this space only takes SpaceRunnable
+	// tasks
+	private Class<?> getAcceptedType(ComputerProxy cp) {
+		return (cp.getCompObj() == this.localComputer) ? SpaceRunnable.class
+				: Object.class;
+	}
+
+	/**
+	 * Hands tasks over to a computer. The computer running in the JVM of this
+	 * space is given the list itself, without copying any task, since tasks
+	 * are never changed by their execution ({@link api.Task#getContinuation()}).
+	 * Tasks for any other computer are serialized by the calling thread,
+	 * before the remote call is made.
+	 * 
+	 * @param cp
+	 *            Proxy of the computer
+	 * @param tasks
+	 *            Tasks already recorded as queued in the proxy
+	 * @throws RemoteException
+	 */
+	void sendTasks(ComputerProxy cp, List<Task<?>> tasks)
+			throws RemoteException {
+		Computer comp = cp.getCompObj();
+		if (comp == this.localComputer) {
+			comp.addTasks(tasks);
+			return;
+		}
+		MarshalledObject<List<Task<?>>> batch;
+		try {
+			batch = new MarshalledObject<List<Task<?>>>(tasks);
+		} catch (IOException e) {
+			throw new MarshalException("Unable to serialize tasks for "
+					+ cp.getId(), e);
+		}
+		comp.addTaskBatch(batch);
 	}
 
 	/**
@@ -163,6 +686,20 @@ public class SpaceImpl extends UnicastRemoteObject implements Client2Space,
 	 * @throws RemoteException
 	 */
 	public void putResult(Result<?> result) throws RemoteException {
+		synchronized (streamIds) {
+			if (streamIds.contains(result.getId())) {
+				streamResults.add(result);
+				return;
+			}
+			if (result.getId().startsWith(STREAM_ID_PREFIX)) {
+				// The stream of the task has been given up by the client
+				return;
+			}
+		}
+		if (jobAbandoned) {
+			// The client has been given an approximate result already
+			return;
+		}
 		results.add(result);
 	}
 
@@ -180,18 +717,20 @@ public class SpaceImpl extends UnicastRemoteObject implements Client2Space,
 		System.out.println("SpaceImpl -> Computer registration successful : "
 				+ id);
 		computer.setShared(shared);
-
-		if (this.latencySwitch && this.mcoreSwitch) {
-			computer.startWorkers(numOfProcessors, numOfProcessors
-					* TASK_QUEUE_MAX_SIZE);
-		} else if (this.latencySwitch && !this.mcoreSwitch) {
-			computer.startWorkers(MIN_PROCESSORS, numOfProcessors
-					* TASK_QUEUE_MAX_SIZE);
-		} else if (!this.latencySwitch && this.mcoreSwitch) {
-			computer.startWorkers(numOfProcessors, TASK_QUEUE_MIN_SIZE);
-		} else {
-			computer.startWorkers(MIN_PROCESSORS, TASK_QUEUE_MIN_SIZE);
+		pressureMonitor.register(computer);
+		granularityMonitor.register(computer);
+		// Successors held by computers are not journaled
+		computer.setResultForwarding(FORWARDING && journal == null);
+		if (router != null) {
+			computer.setShards(router.getRing(), router.getSpaces(this));
 		}
+
+		int workers = this.mcoreSwitch ? numOfProcessors : MIN_PROCESSORS;
+		int queueSize = this.latencySwitch ? numOfProcessors
+				* TASK_QUEUE_MAX_SIZE : TASK_QUEUE_MIN_SIZE;
+		computer.startWorkers(workers, queueSize);
+		this.dispatchers.put(aProxy, new Dispatcher(this, aProxy, workers,
+				queueSize));
 	}
 
 	/**
@@ -219,11 +758,19 @@ public class SpaceImpl extends UnicastRemoteObject implements Client2Space,
 	 * Starts the compute space and binds remote objects into the RMI registry
 	 * 
 	 * @param args
-	 *            Command-line arguments can be passed (if any)
+	 *            Command-line arguments : latency switch (0/1), multicore
+	 *            switch (0/1) and, optionally, a directory in which the state
+	 *            of the space is journaled. The space becomes one of several
+	 *            shards when the system property <code>space.shards</code> is
+	 *            set (see {@link system.ShardRouter ShardRouter}).
 	 */
 	public static void main(String[] args) {
 		String latency = args[0];
 		String mcore = args[1];
+		File journalDirectory = null;
+		if (args.length > 2) {
+			journalDirectory = new File(args[2]);
+		}
 
 		boolean latencySwitch = false;
 		if (latency.equals("1")) {
@@ -240,7 +787,17 @@ public class SpaceImpl extends UnicastRemoteObject implements Client2Space,
 		}
 		try {
 
-			Client2Space space = new SpaceImpl();
+			ShardRouter router = ShardRouter.fromSystemProperties(PORT_NUMBER);
+			if (router != null && journalDirectory != null) {
+				System.err.println("SpaceImpl -> Journaling is not supported by sharded spaces");
+				journalDirectory = null;
+			}
+			SpaceImpl space = new SpaceImpl(journalDirectory);
+			if (router != null) {
+				space.setShardRouter(router);
+				System.out.println("SpaceImpl -> Shard " + router.getSelf()
+						+ " of " + router.getRing().getShards());
+			}
 			space.setLatencyOptimization(latencySwitch);
 			space.setMcoreSwitch(mcoreSwitch);
 			System.out.println("Commn. Latency Optimization -> " + space.getLatencyOptimization());
@@ -256,68 +813,176 @@ public class SpaceImpl extends UnicastRemoteObject implements Client2Space,
 	}
 
 	/**
-	 * Polls for {@link system.Successor Successor} threads to be execute once
-	 * they move into READY status
+	 * Supervises the {@link system.Dispatcher Dispatcher} threads of all
+	 * registered computers. Tasks held by a computer whose dispatcher failed
+	 * are reassigned to the ready queue and the computer is removed.
 	 */
 	@Override
 	public void run() {
 		while (true) {
-			while (!proxies.isEmpty()) {
+			try {
+				Thread.sleep(SUPERVISOR_INTERVAL);
+			} catch (InterruptedException e) {
+				return;
+			}
+			for (ComputerProxy cp : this.getProxies()) {
+				Dispatcher dispatcher = dispatchers.get(cp);
+				if (dispatcher != null && dispatcher.hasFailed()) {
+					this.removeFailedComputer(cp);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 
+	 * @return Number of computers that have run out of tasks while the space
+	 *         had none to give them
+	 */
+	int getIdleComputerCount() {
+		int idle = 0;
+		synchronized (dispatchers) {
+			for (Dispatcher dispatcher : dispatchers.values()) {
+				if (dispatcher.isStarved()) {
+					idle++;
+				}
+			}
+		}
+		return idle;
+	}
 
-				ComputerProxy cp = this.getSmallestProxy();
-				String thisProxyId = cp.getId();
+	// Reassigns all tasks held by an unreachable computer
+	private void removeFailedComputer(ComputerProxy cp) {
+		System.err.println("Reassigning tasks in Computer" + cp.getId()
+				+ " to ready queue");
+		List<Task<?>> orphans = cp.getTaskQueue();
+		orphans.addAll(cp.clearAffineTasks());
+		// Successors held by the computer are lost with it
+		orphans.addAll(cp.getHostedTasks());
+		for (Task<?> task : orphans) {
+			try {
+				this.put(task);
 
-				try {
+			} catch (RemoteException ex) {
+				System.err.println("Unable to reassign tasks to ready queue");
+				ex.printStackTrace();
+			}
+		}
+		proxies.remove(cp);
+		dispatchers.remove(cp);
+		IdProxyMap.remove(cp.getId());
+	}
 
-					if (cp.getCompObj().getTaskQueueSize() < MIN_COMP_QSIZE) {
-						List<Task<?>> list = new Vector<Task<?>>();
-						int noOfTasks = cp.getCompObj().getTaskQueueMaxSize()
-								- cp.getCompObj().getTaskQueueSize();
-						int i;
-						for (i = 0; (!readyTasks.isEmpty()) && i < noOfTasks; i++) {
-
-							Task<?> t = removeReadyTask();
-							list.add(t);
-							cp.addTaskToQueue(t);
-						}
-						if (list.size() != 0) {
-							cp.getCompObj().addTasks(list);
-						}
-
-						/*
-						 * Get the first entry from the proxy list and add tasks
-						 * to it. Then set the map to show the new values of the
-						 * queue sizes by polling over them.
-						 */
-
-						this.proxies.put(cp, i);
-						
+	/**
+	 * Takes the tasks to be dispatched to a computer and records them as
+	 * queued in its proxy. Fine-grained tasks are packed into bundles of up
+	 * to {@link #BUNDLE_SIZE} tasks. The computer running in the JVM of this
+	 * space only takes tasks marked as {@link system.SpaceRunnable
+	 * SpaceRunnable}; any other task is left to the other computers. Tasks
+	 * that can no longer contribute to the computation, given the latest
+	 * shared object ({@link api.Task#isPrunable(Shared)}), are resolved with
+	 * a null value instead of being dispatched.
+	 * 
+	 * @param cp
+	 *            Computer to which the tasks are dispatched
+	 * @param maxTasks
+	 *            Maximum number of tasks to be taken
+	 * @return Tasks to be dispatched (possibly none)
+	 */
+	List<Task<?>> takeTasksFor(ComputerProxy cp, int maxTasks) {
+		List<Task<?>> list = new Vector<Task<?>>();
+		// A sub-space relays tasks, so it cannot execute bundles
+		boolean bundling = BUNDLE_SIZE > 1
+				&& !(cp.getCompObj() instanceof Computer2Space);
+		TaskBundle bundle = null;
+		// Read before locking, since broadcasts lock the state while holding
+		// the monitor of the space
+		Shared<?> latest = this.getShared();
+		stateLock.readLock().lock();
+		try {
+			int taken = 0;
+			while (taken < maxTasks) {
+				Task<?> t = this.takeTaskFor(cp);
+				if (t == null) {
+					break;
+				}
+				if (isPrunable(t, latest)) {
+					this.pruneTask(t);
+					continue;
+				}
+				taken++;
+				cp.addTaskToQueue(t);
+				if (bundling && t.isFineGrained()) {
+					if (bundle == null || bundle.size() == BUNDLE_SIZE) {
+						bundle = new TaskBundle();
+						list.add(bundle);
 					}
+					bundle.add(t);
+				} else {
+					list.add(t);
 				}
+			}
+		} finally {
+			stateLock.readLock().unlock();
+		}
+		if (bundle != null && bundle.size() == 1) {
+			// A bundle holding a single task is only overhead
+			list.set(list.indexOf(bundle), bundle.getTasks().get(0));
+		}
+		return list;
+	}
 
-				catch (RemoteException e) {
-					System.err
-							.println("Remote Exception occurred in Computer: "
-									+ thisProxyId);
-					System.err.println("Reassigning tasks in Computer"
-							+ thisProxyId + " to ready queue");
-					e.printStackTrace();
-					for (Task<?> task : cp.getTaskQueue()) {
-						try {
-							this.put(task);
-
-						} catch (RemoteException ex) {
-							System.err
-									.println("Unable to reassign tasks to ready queue");
-							ex.printStackTrace();
-						}
-					}
-					proxies.remove(cp);
-					IdProxyMap.remove(cp.getId());
+	// The root task is never pruned, since no successor waits for its value
+	private static boolean isPrunable(Task<?> t, Shared<?> latest) {
+		return latest != null && !t.getId().equals(t.getParentId())
+				&& t.isPrunable(latest);
+	}
 
-				}
+	// Resolves a task with a null value instead of dispatching it
+	private void pruneTask(Task<?> t) {
+		try {
+			this.resolveTask(t, new ResultImpl<Object>(t.getId(), t
+					.getParentId()));
+		} catch (RemoteException e) {
+			System.err.println("SpaceImpl -> Unable to prune task "
+					+ t.getId());
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * 
+	 * @return Counter incremented whenever tasks may have become ready
+	 */
+	long getDispatchEpoch() {
+		synchronized (dispatchSignal) {
+			return dispatchEpoch;
+		}
+	}
+
+	/**
+	 * Waits until tasks may have become ready, unless that already happened
+	 * since the given epoch
+	 * 
+	 * @param epoch
+	 *            Value of {@link #getDispatchEpoch()} read by the caller
+	 * @param timeout
+	 *            Maximum time to wait (in milliseconds)
+	 * @throws InterruptedException
+	 */
+	void awaitDispatch(long epoch, long timeout) throws InterruptedException {
+		synchronized (dispatchSignal) {
+			if (dispatchEpoch == epoch) {
+				dispatchSignal.wait(timeout);
 			}
+		}
+	}
 
+	// Wakes up dispatchers waiting for ready tasks
+	private void signalDispatch() {
+		synchronized (dispatchSignal) {
+			dispatchEpoch++;
+			dispatchSignal.notifyAll();
 		}
 	}
 
@@ -329,39 +994,392 @@ public class SpaceImpl extends UnicastRemoteObject implements Client2Space,
 			throws RemoteException {
 
 		ComputerProxy thisCp = IdProxyMap.get(computerId);
+		if (thisCp == null) {
+			System.err.println("SpaceImpl -> Discarding result "
+					+ result.getId() + " from unregistered computer "
+					+ computerId);
+			return;
+		}
+		stateLock.readLock().lock();
+		try {
+			if (result instanceof BundleResult) {
+				List<Result<?>> results = ((BundleResult) result).getResults();
+				// All tasks of the bundle were dispatched together
+				long dispatchTime = thisCp.getDispatchTime(result.getId());
+				for (Result<?> r : results) {
+					this.processResult(r, thisCp, results.size());
+				}
+				if (dispatchTime >= 0) {
+					granularityMonitor.recordOverhead(System
+							.currentTimeMillis()
+							- dispatchTime
+							- TimeUnit.NANOSECONDS.toMillis(result
+									.getExecutionTime()));
+				}
+			} else {
+				this.processResult(result, thisCp, 1);
+			}
+		} finally {
+			stateLock.readLock().unlock();
+		}
+		// Subtasks may have become ready and the computer may have capacity
+		this.signalDispatch();
+	}
+
+	/*
+	 * Must be called while holding the read lock on the state of the space.
+	 * The result may be one of the results of a bundle of the given size, in
+	 * which case the round trip of the bundle is shared among its tasks.
+	 */
+	private void processResult(Result<?> result, ComputerProxy thisCp,
+			int bundleSize) throws RemoteException {
+		if (thisCp.forgetAbandonedTask(result.getId())) {
+			// Late result of a copy that lost against a speculated copy
+			this.discardResult(result, thisCp);
+			return;
+		}
+		long dispatchTime = thisCp.getDispatchTime(result.getId());
 		/* t is the task that generated the result */
-		Task<?> t = thisCp.getTaskFromQueue(result.getId());
+		Task<?> t = thisCp.removeTaskFromQueue(result.getId());
+		if (t == null || !stragglerMonitor.claim(t, thisCp)) {
+			/*
+			 * Another copy of the task has already reported its result, or
+			 * the task was cancelled
+			 */
+			this.discardResult(result, thisCp);
+			return;
+		}
+		if (dispatchTime >= 0) {
+			long elapsedTime = System.currentTimeMillis() - dispatchTime;
+			taskTimer.record(t, elapsedTime / bundleSize);
+			if (bundleSize == 1) {
+				granularityMonitor.recordOverhead(elapsedTime
+						- TimeUnit.NANOSECONDS.toMillis(result
+								.getExecutionTime()));
+			}
+		}
+		if (journal != null) {
+			journal.logResult(result);
+		}
+
 		if (result.getSubTasks() != null) {
 
-			Successor s = new Successor(t, this, t.getDecompositionSize());
-			this.addSuccessor(s);
+			if (this.isHostedByComputer(result)) {
+				// The computer holds the successor until its final result
+				thisCp.hostTask(t);
+			} else {
+				Successor s = new Successor(t, this, result.getSubTasks()
+						.size());
+				this.addSuccessor(s);
+			}
 
+			if (router != null) {
+				this.routeSubTasks(result, thisCp);
+				return;
+			}
 			for (Task<?> task : result.getSubTasks()) {
 
 				if (task.getQueuingStatus().equals(Task.QueuingStatus.QUEUED)) {
 
 					thisCp.addTaskToQueue(task);
-				} else {
-					this.put(task);
+				} else if (journal != null || !subproblems.attach(task)) {
+					// Tasks waiting for the same subproblem are not part of
+					// the snapshots of the journal, so each one is dispatched
+					thisCp.addAffineTask(task);
 				}
 			}
 		}
 
-		else if (result.getValue() != null
-				&& (t.getId().equals(t.getParentId()))) {
+		else {
+			this.completeTask(t, result);
+		}
+	}
+
+	/**
+	 * Accepts the result of a Conquer phase executed by the compose executor
+	 * of this space, as if a computer had reported it
+	 * 
+	 * @param t
+	 *            Task whose Conquer phase was executed
+	 * @param result
+	 *            Result carrying the value of the task
+	 */
+	void composed(Task<?> t, Result<?> result) {
+		stateLock.readLock().lock();
+		try {
+			composeExecutor.forget(t);
+			if (journal != null) {
+				journal.logResult(result);
+			}
+			if (t.getParentHost() != null) {
+				t.getParentHost().putValue(t.getParentId(), t.getId(),
+						result.getValue());
+			}
+			this.completeTask(t, result);
+		} catch (RemoteException e) {
+			System.err.println("SpaceImpl -> Unable to deliver result "
+					+ t.getId());
+			e.printStackTrace();
+		} finally {
+			stateLock.readLock().unlock();
+		}
+		this.signalDispatch();
+	}
+
+	/**
+	 * Asks the computer executing a task to report its value to this space,
+	 * since other tasks solving the same subproblem wait for it
+	 * 
+	 * @param taskId
+	 *            ID of the task whose value is wanted
+	 * @return false if the task has not been dispatched to any computer, in
+	 *         which case its value is requested once it is dispatched
+	 */
+	boolean requestValue(String taskId) {
+		for (ComputerProxy cp : this.getProxies()) {
+			if (cp.getTaskFromQueue(taskId) == null) {
+				continue;
+			}
+			List<String> ids = new Vector<String>();
+			ids.add(taskId);
+			try {
+				cp.getCompObj().requestValues(ids);
+			} catch (RemoteException e) {
+				System.err.println("SpaceImpl -> Unable to request value of "
+						+ taskId + " from " + cp.getId());
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 
+	 * @param tasks
+	 *            Tasks about to be dispatched
+	 * @return IDs of the tasks whose values other tasks wait for, to be
+	 *         requested from the computer the tasks are dispatched to
+	 */
+	List<String> takeWantedIds(List<Task<?>> tasks) {
+		return subproblems.takeWantedIds(tasks);
+	}
+
+	/**
+	 * Delivers the value of a task that is not dispatched, either because
+	 * another task computed the same subproblem or because it was pruned
+	 * 
+	 * @param t
+	 *            Task that is not dispatched
+	 * @param result
+	 *            Result carrying the value, with the IDs of the task
+	 * @throws RemoteException
+	 */
+	void resolveTask(Task<?> t, Result<?> result) throws RemoteException {
+		if (journal != null) {
+			journal.logResult(result);
+		}
+		if (t.getParentHost() != null) {
+			try {
+				t.getParentHost().putValue(t.getParentId(), t.getId(),
+						result.getValue());
+			} catch (RemoteException e) {
+				System.err.println("SpaceImpl -> Unable to deliver result "
+						+ t.getId() + " : computer holding task "
+						+ t.getParentId() + " is not reachable");
+			}
+		}
+		this.completeTask(t, result);
+	}
+
+	// Delivers the value of a task to the successor of its parent
+	private void completeTask(Task<?> t, Result<?> result)
+			throws RemoteException {
+		subproblems.complete(t, result);
+		if (this.relayResult(t, result)) {
+			// The parent of the task lives in another space
+			return;
+		} else if (t.getParentHost() != null) {
+			// The value has been forwarded to the computer holding the parent
+			return;
+		} else if (t.getId().equals(t.getParentId())
+				&& (result.getValue() != null || this.isStreamed(t.getId()))) {
+			if (!this.isStreamed(t.getId())) {
+				this.jobRootId = null;
+				this.jobRootClass = null;
+			}
+			if (router != null
+					&& !router.getClientShard().equals(router.getSelf())) {
+				router.getPeer(router.getClientShard()).returnResult(result);
+				return;
+			}
 			this.putResult(result);
+		} else if (router != null && !router.isLocal(t.getParentId())) {
+			// The successor of the parent is held by another shard
+			router.getPeer(router.getOwner(t.getParentId())).deliverValue(
+					t.getParentId(), t.getId(), result.getValue());
 		} else {
 			Closure parentClosure = this.getClosure(t.getParentId());
-			parentClosure.put(result.getValue());
+			if (parentClosure == null) {
+				System.err.println("SpaceImpl -> No task waiting for result "
+						+ t.getId());
+				return;
+			}
+			parentClosure.putResult(t.getId(), result);
 		}
-		thisCp.removeTaskFromQueue(result.getId());
 	}
 
-	private Task<?> removeReadyTask() {
-		synchronized (readyTasks) {
-			Task<?> t = readyTasks.remove(0);
+	// Subtasks know their parent's host if the computer holds the successor
+	private boolean isHostedByComputer(Result<?> result) {
+		List<? extends Task<?>> subTasks = result.getSubTasks();
+		return !subTasks.isEmpty() && subTasks.get(0).getParentHost() != null;
+	}
+
+	// Hands over subtasks owned by other shards to their owners
+	private void routeSubTasks(Result<?> result, ComputerProxy thisCp)
+			throws RemoteException {
+		Map<String, List<Task<?>>> submitted = new HashMap<String, List<Task<?>>>();
+		Map<String, List<Task<?>>> adopted = new HashMap<String, List<Task<?>>>();
+		for (Task<?> task : result.getSubTasks()) {
+			boolean queued = task.getQueuingStatus().equals(
+					Task.QueuingStatus.QUEUED);
+			if (router.isLocal(task.getId())) {
+				if (queued) {
+					thisCp.addTaskToQueue(task);
+				} else {
+					thisCp.addAffineTask(task);
+				}
+				continue;
+			}
+			Map<String, List<Task<?>>> byOwner = queued ? adopted : submitted;
+			String owner = router.getOwner(task.getId());
+			List<Task<?>> tasks = byOwner.get(owner);
+			if (tasks == null) {
+				tasks = new Vector<Task<?>>();
+				byOwner.put(owner, tasks);
+			}
+			tasks.add(task);
+		}
+		for (Entry<String, List<Task<?>>> e : submitted.entrySet()) {
+			router.getPeer(e.getKey()).submitTasks(e.getValue());
+		}
+		for (Entry<String, List<Task<?>>> e : adopted.entrySet()) {
+			router.getPeer(e.getKey()).adoptTasks(thisCp.getId(), e.getValue());
+		}
+	}
+
+	// Announces a new computation to all shards and hands over its root task
+	private boolean startShardedJob(Task<?> aTask, Shared<?> shared)
+			throws RemoteException {
+		if (proxies.size() == 0) {
+			return false;
+		}
+		router.setClientShard(router.getSelf());
+		for (String shard : router.getPeerNames()) {
+			router.getPeer(shard).beginJob(shared, router.getSelf());
+		}
+		if (router.isLocal(aTask.getId())) {
+			return this.put(aTask);
+		}
+		List<Task<?>> root = new Vector<Task<?>>();
+		root.add(aTask);
+		router.getPeer(router.getOwner(aTask.getId())).submitTasks(root);
+		return true;
+	}
+
+	/**
+	 * Gives a space that relays tasks on behalf of another space the chance to
+	 * pass on the final result of a relayed task.
+	 * 
+	 * @param t
+	 *            Task that produced the result
+	 * @param result
+	 *            Final result of the task
+	 * @return true if the result was passed on, false if the result has to
+	 *         be delivered within this space
+	 * @throws RemoteException
+	 */
+	protected boolean relayResult(Task<?> t, Result<?> result)
+			throws RemoteException {
+		return false;
+	}
+
+	/**
+	 * Drops a result that is no longer expected by the compute space. Subtasks
+	 * that the computer queued locally while producing the result are
+	 * cancelled as well, since nothing would consume their results.
+	 */
+	private void discardResult(Result<?> result, ComputerProxy cp) {
+		System.err.println("SpaceImpl -> Discarding duplicate result "
+				+ result.getId() + " from " + cp.getId());
+		if (result.getSubTasks() == null) {
+			return;
+		}
+		List<String> queuedIds = new Vector<String>();
+		for (Task<?> task : result.getSubTasks()) {
+			if (task.getQueuingStatus().equals(Task.QueuingStatus.QUEUED)) {
+				queuedIds.add(task.getId());
+			}
+		}
+		if (!queuedIds.isEmpty()) {
+			try {
+				cp.getCompObj().cancelTasks(queuedIds);
+			} catch (RemoteException e) {
+				System.err.println("SpaceImpl -> Unable to cancel subtasks in "
+						+ cp.getId());
+			}
+		}
+	}
+
+	/**
+	 * Picks the next task to be dispatched to a computer. Subtasks produced by
+	 * the computer itself come first, so that their data stay where they were
+	 * created. Otherwise the computer gets a task from the ready queue, or
+	 * else a subtask of the computer with the largest backlog, as long as that
+	 * backlog exceeds {@link #IMBALANCE_THRESHOLD}. Under pressure, tasks in
+	 * the ready queue come first, since they include the tasks that let
+	 * waiting tasks drain.
+	 * 
+	 * @param cp
+	 *            Computer to which the task is dispatched
+	 * @return Task to be dispatched, or null if there is none
+	 */
+	private Task<?> takeTaskFor(ComputerProxy cp) {
+		// Tasks the computer does not accept are left at the head of queues
+		Class<?> type = this.getAcceptedType(cp);
+		Task<?> t = null;
+		if (pressureMonitor.isUnderPressure()) {
+			t = readyTasks.remove(type);
+			if (t != null) {
+				locality.increment("global");
+				return t;
+			}
+		}
+		t = cp.takeAffineTask(type);
+		if (t != null) {
+			locality.increment("affine");
 			return t;
 		}
+		t = readyTasks.remove(type);
+		if (t != null) {
+			locality.increment("global");
+			return t;
+		}
+		ComputerProxy donor = null;
+		for (ComputerProxy other : this.getProxies()) {
+			if (other != cp
+					&& other.getAffineTaskCount() > IMBALANCE_THRESHOLD
+					&& (donor == null || other.getAffineTaskCount() > donor
+							.getAffineTaskCount())) {
+				donor = other;
+			}
+		}
+		if (donor != null) {
+			t = donor.takeAffineTask(type);
+			if (t != null) {
+				locality.increment("redistributed");
+			}
+		}
+		return t;
 	}
 
 	/**
@@ -370,7 +1388,7 @@ public class SpaceImpl extends UnicastRemoteObject implements Client2Space,
 	 *            Successor thread to be added to the queue
 	 */
 	public void addSuccessor(Successor s) {
-		synchronized (this) {
+		synchronized (waitingTasks) {
 			waitingTasks.put(s.getId(), s);
 		}
 
@@ -382,7 +1400,7 @@ public class SpaceImpl extends UnicastRemoteObject implements Client2Space,
 	 *            Successor thread to be removed from the queue
 	 */
 	public void removeSuccessor(String successorId) {
-		synchronized (this) {
+		synchronized (waitingTasks) {
 			waitingTasks.remove(successorId);
 		}
 
@@ -392,36 +1410,65 @@ public class SpaceImpl extends UnicastRemoteObject implements Client2Space,
 	 * 
 	 * @param id
 	 *            ID of the successor thread whose Closure object is required
-	 * @return Gets the closure object corresponding to the Successor thread.
+	 * @return Gets the closure object corresponding to the Successor thread,
+	 *         or null if no such thread is waiting
 	 */
 	public Successor.Closure getClosure(String id) {
-		synchronized (this) {
-			return waitingTasks.get(id).getClosure();
+		synchronized (waitingTasks) {
+			Successor s = waitingTasks.get(id);
+			if (s == null) {
+				return null;
+			}
+			return s.getClosure();
 		}
 
 	}
 
 	/**
-	 * This method is synchronized because no two computers can broadcast at the
-	 * same time.
+	 * Newer shared objects are also published to all other shards, after they
+	 * have been accepted by this space.
 	 * 
 	 * @see system.Computer2Space#broadcast(Broadcast)
 	 *      system.Computer2Space.broadcast(Broadcast)
 	 */
 	@Override
-	public synchronized void broadcast(Broadcast broadcast)
+	public void broadcast(Broadcast broadcast) throws RemoteException {
+		if (this.acceptShared(broadcast) && router != null) {
+			for (String shard : router.getPeerNames()) {
+				router.getPeer(shard).publishShared(broadcast.getShared());
+			}
+		}
+	}
+
+	/**
+	 * This method is synchronized because no two computers can broadcast at the
+	 * same time.
+	 * 
+	 * @return true if the shared object in the broadcast was accepted
+	 */
+	private synchronized boolean acceptShared(Broadcast broadcast)
 			throws RemoteException {
 		Shared<?> newShared = broadcast.getShared();
 		String computerId = broadcast.getComputerId();
 		if (!shared.isNewerThan(newShared)) {
-			this.setShared(newShared);
+			this.shared = newShared;
+			if (journal != null) {
+				stateLock.readLock().lock();
+				try {
+					journal.logShared(newShared);
+				} finally {
+					stateLock.readLock().unlock();
+				}
+			}
 			Set<Entry<ComputerProxy, Integer>> proxySet = proxies.entrySet();
 			for (Entry<ComputerProxy, Integer> e : proxySet) {
 				if (!e.getKey().getId().equals(computerId)) {
 					e.getKey().setShared(newShared);
 				}
 			}
+			return true;
 		}
+		return false;
 	}
 
 	/**
@@ -443,35 +1490,153 @@ public class SpaceImpl extends UnicastRemoteObject implements Client2Space,
 	 * @param task Task to be removed from the wait queue
 	 */
 
-	public synchronized void removeFromWaitQ(Task<?> task) {
+	public void removeFromWaitQ(Task<?> task) {
+		waitingTasks.remove(task.getId());
+	}
 
-		Set<Entry<String, Successor>> waitQ = waitingTasks.entrySet();
-		for (Entry<String, Successor> e : waitQ) {
-			String thisKey = e.getKey();
-			if (thisKey.equals(task.getId())) {
-				waitingTasks.remove(thisKey);
-				return;
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see system.Space2Space#submitTasks(java.util.List)
+	 */
+	@Override
+	public void submitTasks(List<Task<?>> tasks) throws RemoteException {
+		for (Task<?> task : tasks) {
+			this.enqueue(task);
+		}
+	}
+
+	/**
+	 * Tasks queued in a computer that has not registered with this shard yet
+	 * are queued again, since their results from that computer would be
+	 * discarded.
+	 * 
+	 * @see system.Space2Space#adoptTasks(String, List)
+	 */
+	@Override
+	public void adoptTasks(String computerId, List<Task<?>> tasks)
+			throws RemoteException {
+		ComputerProxy cp = IdProxyMap.get(computerId);
+		for (Task<?> task : tasks) {
+			if (cp != null) {
+				cp.addTaskToQueue(task);
+			} else {
+				task.setQueuingStatus(Task.QueuingStatus.NOT_QUEUED);
+				this.enqueue(task);
 			}
 		}
 	}
 
-	private ComputerProxy getSmallestProxy() {
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see system.Space2Space#deliverValue(java.lang.String,
+	 * java.lang.String, java.lang.Object)
+	 */
+	@Override
+	public void deliverValue(String parentId, String childId, Object value)
+			throws RemoteException {
+		Closure parentClosure = this.getClosure(parentId);
+		if (parentClosure == null) {
+			System.err.println("SpaceImpl -> No task waiting for result "
+					+ childId);
+			return;
+		}
+		parentClosure.put(childId, value);
+	}
 
-		int minQueueSize = Integer.MAX_VALUE;
-		List<ComputerProxy> minProxies = new Vector<ComputerProxy>();
-		for (Entry<ComputerProxy, Integer> entry : this.proxies.entrySet()) {
-			int thisQueueSize = entry.getValue();
-			ComputerProxy thisProxy = entry.getKey();
-			if (thisQueueSize < minQueueSize) {
-				minQueueSize = thisQueueSize;
-				minProxies.clear();
-				minProxies.add(thisProxy);
-			} else if (thisQueueSize == minQueueSize) {
-				minProxies.add(thisProxy);
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see system.Space2Space#beginJob(system.Shared, java.lang.String)
+	 */
+	@Override
+	public void beginJob(Shared<?> shared, String clientShard)
+			throws RemoteException {
+		this.setShared(shared);
+		subproblems.clear();
+		router.setClientShard(clientShard);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see system.Space2Space#publishShared(system.Shared)
+	 */
+	@Override
+	public synchronized void publishShared(Shared<?> newShared)
+			throws RemoteException {
+		if (shared == null || !shared.isNewerThan(newShared)) {
+			this.shared = newShared;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see system.Space2Space#returnResult(api.Result)
+	 */
+	@Override
+	public void returnResult(Result<?> result) throws RemoteException {
+		this.putResult(result);
+	}
+
+	/**
+	 * Makes this space one of several shards sharing computations. Must be
+	 * called before any computer registers.
+	 * 
+	 * @param router
+	 *            Router between this shard and its peers
+	 */
+	void setShardRouter(ShardRouter router) {
+		this.router = router;
+	}
+
+	/**
+	 * 
+	 * @return A snapshot of the proxies of all registered computers
+	 */
+	List<ComputerProxy> getProxies() {
+		synchronized (proxies) {
+			return new Vector<ComputerProxy>(proxies.keySet());
+		}
+	}
+
+	/**
+	 * 
+	 * @return true if there are tasks waiting to be dispatched to computers
+	 */
+	boolean hasReadyTasks() {
+		if (!readyTasks.isEmpty()) {
+			return true;
+		}
+		for (ComputerProxy cp : this.getProxies()) {
+			if (cp.getAffineTaskCount() > 0) {
+				return true;
 			}
 		}
-		Collections.shuffle(minProxies);
-		return minProxies.get(0);
+		return false;
+	}
+
+	/**
+	 * 
+	 * @return Number of tasks that are either ready or waiting for the values
+	 *         of their children
+	 */
+	int getLiveTaskCount() {
+		int live = readyTasks.size() + waitingTasks.size();
+		for (ComputerProxy cp : this.getProxies()) {
+			live += cp.getAffineTaskCount();
+		}
+		return live;
+	}
+
+	/**
+	 * 
+	 * @return Per task-type timings of results received by this space
+	 */
+	TaskTimer getTaskTimer() {
+		return this.taskTimer;
 	}
 
 	@Override
@@ -0,0 +1,345 @@
+package system;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.Vector;
+
+import api.Result;
+import api.Task;
+
+/**
+ * Write-ahead journal of a compute space. Every event that changes the state
+ * of the space (a new computation, an accepted result, a new shared object)
+ * is appended to a memory-mapped journal file. Periodically the space writes
+ * a compact snapshot of its whole state ({@link system.SpaceCheckpoint
+ * SpaceCheckpoint}) and the journal is truncated. After a restart, the state
+ * is recovered by replaying the journal on top of the last snapshot.
+ *
+ * Events are serialized by the thread that reports them, but they are written
+ * to the journal in batches by a dedicated thread, so that the journal only
+ * ever sees large sequential writes.
+ *
+ * Snapshots and journals carry a generation number. A journal is only
+ * replayed on top of the snapshot of the same generation, which makes it safe
+ * to crash between writing a snapshot and truncating the journal.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ *
+ */
+public class SpaceJournal implements Runnable {
+
+	private static final String JOURNAL_FILE = "space.journal";
+	private static final String SNAPSHOT_FILE = "space.snapshot";
+
+	// Size of each memory-mapped region of the journal
+	private static final int MAP_SIZE = 64 * 1024 * 1024;
+
+	// Time between two batched writes to the journal
+	private static final long FLUSH_INTERVAL = 20;
+
+	// A snapshot is taken after this many records or this much time
+	private static final int CHECKPOINT_RECORDS = 200000;
+	private static final long CHECKPOINT_INTERVAL = 60000;
+
+	private static final byte JOB = 1;
+	private static final byte RESULT = 2;
+	private static final byte SHARED = 3;
+
+	// Generation number followed by the length of the first record
+	private static final int HEADER_SIZE = 8;
+
+	private Thread t;
+	private SpaceImpl space;
+	private File journalFile;
+	private File snapshotFile;
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+	private long bufferBase;
+	private long generation;
+
+	private List<byte[]> pendingRecords;
+	private Object ioLock;
+	private int recordsSinceCheckpoint;
+	private long lastCheckpointTime;
+
+	/**
+	 *
+	 * @param directory
+	 *            Directory holding the journal and the snapshot
+	 * @throws IOException
+	 */
+	public SpaceJournal(File directory) throws IOException {
+		directory.mkdirs();
+		this.journalFile = new File(directory, JOURNAL_FILE);
+		this.snapshotFile = new File(directory, SNAPSHOT_FILE);
+		this.pendingRecords = new Vector<byte[]>();
+		this.ioLock = new Object();
+		this.channel = new RandomAccessFile(journalFile, "rw").getChannel();
+	}
+
+	/**
+	 * Rebuilds the state of the compute space from the last snapshot and the
+	 * journal written after it.
+	 *
+	 * @return Recovered state of the compute space
+	 * @throws IOException
+	 */
+	public SpaceCheckpoint recover() throws IOException {
+		SpaceCheckpoint checkpoint = new SpaceCheckpoint();
+		long snapshotGeneration = 0;
+		if (snapshotFile.exists()) {
+			DataInputStream in = new DataInputStream(new FileInputStream(
+					snapshotFile));
+			try {
+				snapshotGeneration = in.readLong();
+				checkpoint = (SpaceCheckpoint) new ObjectInputStream(in)
+						.readObject();
+			} catch (ClassNotFoundException e) {
+				throw new IOException("Corrupt snapshot : " + e.getMessage());
+			} finally {
+				in.close();
+			}
+		}
+		this.generation = snapshotGeneration;
+
+		int replayed = 0;
+		if (channel.size() >= HEADER_SIZE) {
+			MappedByteBuffer journal = channel.map(
+					FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (journal.getLong() == snapshotGeneration) {
+				while (journal.remaining() >= 5) {
+					int length = journal.getInt();
+					if (length <= 0 || journal.remaining() < length + 1) {
+						break;
+					}
+					byte type = journal.get();
+					byte[] payload = new byte[length];
+					journal.get(payload);
+					try {
+						this.replay(checkpoint, type, payload);
+					} catch (ClassNotFoundException e) {
+						System.err.println("SpaceJournal -> Skipping record : "
+								+ e.getMessage());
+					}
+					replayed++;
+				}
+			}
+		}
+		System.out.println("SpaceJournal -> Recovered snapshot generation "
+				+ snapshotGeneration + " and " + replayed + " journal record(s)");
+		return checkpoint;
+	}
+
+	private void replay(SpaceCheckpoint checkpoint, byte type, byte[] payload)
+			throws IOException, ClassNotFoundException {
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(
+				payload));
+		switch (type) {
+		case JOB:
+			Task<?> root = (Task<?>) in.readObject();
+			Shared<?> shared = (Shared<?>) in.readObject();
+			checkpoint.startJob(root, shared);
+			break;
+		case RESULT:
+			checkpoint.applyResult((Result<?>) in.readObject());
+			break;
+		case SHARED:
+			checkpoint.setShared((Shared<?>) in.readObject());
+			break;
+		}
+	}
+
+	/**
+	 * Starts appending to the journal. Must be called after
+	 * {@link #recover()} and after the recovered state has been checkpointed.
+	 *
+	 * @param space
+	 *            Compute space to be checkpointed periodically
+	 */
+	public void start(SpaceImpl space) {
+		this.space = space;
+		this.lastCheckpointTime = System.currentTimeMillis();
+		t = new Thread(this, "SpaceJournal");
+		t.setDaemon(true);
+		t.start();
+	}
+
+	/**
+	 * Journals the start of a new computation
+	 */
+	public void logJob(Task<?> root, Shared<?> shared) {
+		this.append(JOB, root, shared);
+	}
+
+	/**
+	 * Journals a result accepted by the compute space
+	 */
+	public void logResult(Result<?> result) {
+		this.append(RESULT, result, null);
+	}
+
+	/**
+	 * Journals a new shared object accepted by the compute space
+	 */
+	public void logShared(Shared<?> shared) {
+		this.append(SHARED, shared, null);
+	}
+
+	private void append(byte type, Object first, Object second) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		bytes.write(0);
+		bytes.write(0);
+		bytes.write(0);
+		bytes.write(0);
+		bytes.write(type);
+		try {
+			ObjectOutputStream out = new ObjectOutputStream(bytes);
+			out.writeObject(first);
+			if (type == JOB) {
+				out.writeObject(second);
+			}
+			out.close();
+		} catch (IOException e) {
+			System.err.println("SpaceJournal -> Unable to journal record : "
+					+ e.getMessage());
+			return;
+		}
+		byte[] record = bytes.toByteArray();
+		int length = record.length - 5;
+		record[0] = (byte) (length >>> 24);
+		record[1] = (byte) (length >>> 16);
+		record[2] = (byte) (length >>> 8);
+		record[3] = (byte) length;
+		pendingRecords.add(record);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * Writes journaled records in batches and triggers periodic snapshots
+	 *
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+		while (true) {
+			try {
+				Thread.sleep(FLUSH_INTERVAL);
+				this.flush();
+				if (recordsSinceCheckpoint >= CHECKPOINT_RECORDS
+						|| (recordsSinceCheckpoint > 0 && System
+								.currentTimeMillis()
+								- lastCheckpointTime >= CHECKPOINT_INTERVAL)) {
+					space.checkpoint();
+				}
+			} catch (InterruptedException e) {
+				return;
+			} catch (IOException e) {
+				System.err.println("SpaceJournal -> Write failed : "
+						+ e.getMessage());
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private void flush() throws IOException {
+		synchronized (ioLock) {
+			List<byte[]> batch;
+			synchronized (pendingRecords) {
+				if (pendingRecords.isEmpty()) {
+					return;
+				}
+				batch = new Vector<byte[]>(pendingRecords);
+				pendingRecords.clear();
+			}
+			for (byte[] record : batch) {
+				if (buffer.remaining() < record.length + 4) {
+					// Map the next region right after the last record
+					long position = bufferBase + buffer.position();
+					buffer = channel.map(FileChannel.MapMode.READ_WRITE,
+							position, Math.max(MAP_SIZE, record.length + 4));
+					bufferBase = position;
+				}
+				buffer.put(record);
+			}
+			recordsSinceCheckpoint += batch.size();
+		}
+	}
+
+	/**
+	 * Called by the compute space while its state is frozen, right after the
+	 * state has been captured in a snapshot. Records journaled so far are
+	 * covered by the snapshot and are dropped.
+	 *
+	 * @return Generation number of the snapshot
+	 */
+	public long beginCheckpoint() {
+		synchronized (ioLock) {
+			pendingRecords.clear();
+			this.generation++;
+			return this.generation;
+		}
+	}
+
+	/**
+	 * Writes a snapshot and truncates the journal. Records journaled after
+	 * {@link #beginCheckpoint()} are written to the new journal.
+	 *
+	 * @param snapshotGeneration
+	 *            Generation number returned by {@link #beginCheckpoint()}
+	 * @param checkpoint
+	 *            Serialized {@link system.SpaceCheckpoint SpaceCheckpoint}
+	 * @throws IOException
+	 */
+	public void completeCheckpoint(long snapshotGeneration, byte[] checkpoint)
+			throws IOException {
+		synchronized (ioLock) {
+			File tmp = new File(snapshotFile.getPath() + ".tmp");
+			FileOutputStream out = new FileOutputStream(tmp);
+			try {
+				byte[] header = new byte[8];
+				for (int i = 0; i < 8; i++) {
+					header[i] = (byte) (snapshotGeneration >>> (56 - 8 * i));
+				}
+				out.write(header);
+				out.write(checkpoint);
+				out.getFD().sync();
+			} finally {
+				out.close();
+			}
+			if (!tmp.renameTo(snapshotFile)) {
+				snapshotFile.delete();
+				if (!tmp.renameTo(snapshotFile)) {
+					throw new IOException("Unable to replace "
+							+ snapshotFile.getPath());
+				}
+			}
+
+			if (buffer != null) {
+				buffer.force();
+			}
+			channel.truncate(0);
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, MAP_SIZE);
+			bufferBase = 0;
+			buffer.putLong(snapshotGeneration);
+			buffer.force();
+			recordsSinceCheckpoint = 0;
+			lastCheckpointTime = System.currentTimeMillis();
+		}
+		System.out.println("SpaceJournal -> Snapshot generation "
+				+ snapshotGeneration + " written (" + checkpoint.length
+				+ " bytes)");
+	}
+}
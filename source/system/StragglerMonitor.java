@@ -0,0 +1,235 @@
+package system;
+
+import java.rmi.RemoteException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+
+import api.Task;
+
+/**
+ * Watches the tasks outstanding in every registered computer and launches a
+ * backup copy of tasks that have been running far longer than tasks of the
+ * same type usually take. Backup copies are only launched on idle computers
+ * when the ready queue of the compute space is empty, i.e. at the tail of a
+ * computation where stragglers dominate the completion time.
+ *
+ * Whichever copy of a task reports first wins. The copies still queued in
+ * other computers are cancelled, and results from copies that were already
+ * running are discarded by the compute space.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ *
+ */
+public class StragglerMonitor implements Runnable {
+
+	// Time between two scans of outstanding tasks
+	private static final long CHECK_INTERVAL = 1000;
+
+	// A task is a straggler if it is outstanding for this many times longer
+	// than tasks of its type usually take
+	private static final int STRAGGLER_FACTOR = 4;
+
+	// Tasks outstanding for less than this time are never speculated
+	private static final long MIN_STRAGGLER_AGE = 2000;
+
+	private Thread t;
+	private SpaceImpl space;
+	private Map<String, Speculation> speculations;
+
+	/**
+	 *
+	 * @param space
+	 *            Compute space whose computers are to be monitored
+	 */
+	public StragglerMonitor(SpaceImpl space) {
+		this.space = space;
+		this.speculations = new HashMap<String, Speculation>();
+		t = new Thread(this, "StragglerMonitor");
+		t.setDaemon(true);
+		t.start();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * Periodically scans outstanding tasks for stragglers
+	 *
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+		while (true) {
+			try {
+				Thread.sleep(CHECK_INTERVAL);
+			} catch (InterruptedException e) {
+				return;
+			}
+			if (!space.hasReadyTasks()) {
+				this.speculate();
+			}
+		}
+	}
+
+	// Launches backup copies of stragglers on idle computers
+	private void speculate() {
+		List<ComputerProxy> proxies = space.getProxies();
+		List<ComputerProxy> idleProxies = new Vector<ComputerProxy>();
+		for (ComputerProxy cp : proxies) {
+			if (cp.getTaskQueueSize() == 0) {
+				idleProxies.add(cp);
+			}
+		}
+		if (idleProxies.isEmpty()) {
+			return;
+		}
+
+		long now = System.currentTimeMillis();
+		for (ComputerProxy cp : proxies) {
+			for (Task<?> task : cp.getTaskQueue()) {
+				if (idleProxies.isEmpty()) {
+					return;
+				}
+				long dispatchTime = cp.getDispatchTime(task.getId());
+				long expected = space.getTaskTimer().getExpectedDuration(task);
+				if (dispatchTime < 0 || expected < 0) {
+					continue;
+				}
+				long age = now - dispatchTime;
+				if (age < MIN_STRAGGLER_AGE || age < STRAGGLER_FACTOR * expected) {
+					continue;
+				}
+				ComputerProxy backup = null;
+				for (ComputerProxy idle : idleProxies) {
+					if (idle != cp && space.accepts(idle, task)) {
+						backup = idle;
+						break;
+					}
+				}
+				if (backup == null) {
+					continue;
+				}
+				idleProxies.remove(backup);
+				if (!this.launchBackup(task, cp, backup)) {
+					// Let another idle computer try
+					continue;
+				}
+				System.err.println("StragglerMonitor -> Task " + task.getId()
+						+ " outstanding in " + cp.getId() + " for " + age
+						+ " ms. Backup copy launched in " + backup.getId());
+			}
+		}
+	}
+
+	private boolean launchBackup(Task<?> task, ComputerProxy owner,
+			ComputerProxy backup) {
+		String key = getKey(task);
+		synchronized (this) {
+			if (speculations.containsKey(key)) {
+				return false;
+			}
+			Speculation s = new Speculation();
+			s.copies.add(owner);
+			s.copies.add(backup);
+			speculations.put(key, s);
+		}
+		List<Task<?>> list = new Vector<Task<?>>();
+		list.add(task);
+		backup.addTaskToQueue(task);
+		try {
+			space.sendTasks(backup, list);
+			return true;
+		} catch (RemoteException e) {
+			System.err.println("StragglerMonitor -> Unable to launch backup copy of "
+					+ task.getId() + " in " + backup.getId());
+			backup.removeTaskFromQueue(task.getId());
+			synchronized (this) {
+				speculations.remove(key);
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Called by the compute space when a result arrives, to decide whether
+	 * the result is the first one reported for the task. If the task was
+	 * speculated, the copies in all other computers are cancelled.
+	 *
+	 * @param task
+	 *            Task that produced the result
+	 * @param cp
+	 *            Proxy of the computer that reported the result
+	 * @return false if another copy of the task has already reported a
+	 *         result, true otherwise
+	 */
+	public boolean claim(Task<?> task, ComputerProxy cp) {
+		String key = getKey(task);
+		List<ComputerProxy> losers;
+		synchronized (this) {
+			Speculation s = speculations.get(key);
+			if (s == null) {
+				return true;
+			}
+			s.copies.remove(cp);
+			if (s.resolved) {
+				if (s.copies.isEmpty()) {
+					speculations.remove(key);
+				}
+				return false;
+			}
+			s.resolved = true;
+			losers = new Vector<ComputerProxy>(s.copies);
+		}
+
+		List<String> ids = new Vector<String>();
+		ids.add(task.getId());
+		for (ComputerProxy loser : losers) {
+			/*
+			 * The losing copy may report long after the task ID has been
+			 * reused (e.g. by the Conquer phase of the same task), so its
+			 * proxy has to recognise the late result
+			 */
+			loser.abandonTask(task.getId());
+			try {
+				if (!loser.getCompObj().cancelTasks(ids).isEmpty()) {
+					loser.forgetAbandonedTask(task.getId());
+					this.forget(key, loser);
+				}
+			} catch (RemoteException e) {
+				this.forget(key, loser);
+			}
+		}
+		return true;
+	}
+
+	// The copy in the given computer will never report
+	private synchronized void forget(String key, ComputerProxy cp) {
+		Speculation s = speculations.get(key);
+		if (s != null) {
+			s.copies.remove(cp);
+			if (s.resolved && s.copies.isEmpty()) {
+				speculations.remove(key);
+			}
+		}
+	}
+
+	// The Divide and the Conquer phases of a task share the same ID
+	private static String getKey(Task<?> task) {
+		return task.getId() + ":" + task.getStatus();
+	}
+
+	/**
+	 * Forgets all speculated tasks. Used when a computation ends.
+	 */
+	public synchronized void clear() {
+		speculations.clear();
+	}
+
+	// Computers running a copy of a speculated task
+	private static class Speculation {
+		private List<ComputerProxy> copies = new Vector<ComputerProxy>();
+		private boolean resolved;
+	}
+}
@@ -0,0 +1,418 @@
+package system;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.MalformedURLException;
+import java.net.UnknownHostException;
+import java.rmi.MarshalledObject;
+import java.rmi.Naming;
+import java.rmi.NotBoundException;
+import java.rmi.RemoteException;
+import java.rmi.UnmarshalException;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+
+import api.Result;
+import api.Task;
+
+/**
+ * A compute space that relays tasks on behalf of a root compute space. The
+ * sub-space registers with the root space as if it were a single large
+ * {@link system.Computer Computer}, while local computers register with the
+ * sub-space exactly as they would with a compute space.
+ *
+ * Every task handed over by the root space is scheduled by the sub-space on
+ * its own computers, including all the subtasks it decomposes into. Only the
+ * final result of each relayed task is forwarded to the root space, so the
+ * root space never sees the subtree below a relayed task. Shared objects are
+ * propagated in both directions.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ *
+ */
+public class SubSpace extends SpaceImpl implements Computer {
+
+	private static final long serialVersionUID = -2704468912658164321L;
+
+	// Minimum number of relayed tasks the root space may hand over at a time
+	private static final int RELAY_QUEUE_SIZE = 100;
+
+	private Computer2Space rootSpace;
+	private String id;
+	private int taskQueueMaxSize;
+	private Set<String> relayedTasks;
+	private boolean sequentialMode;
+	private volatile ShardRing ring;
+	private Map<String, Computer2Space> shards;
+
+	/**
+	 *
+	 * @throws RemoteException
+	 */
+	public SubSpace() throws RemoteException {
+		super();
+		this.relayedTasks = Collections.synchronizedSet(new HashSet<String>());
+		this.taskQueueMaxSize = RELAY_QUEUE_SIZE;
+		try {
+			this.id = "SubSpace_" + InetAddress.getLocalHost().getHostName()
+					+ "_" + ComputerImpl.getRandomChars();
+		} catch (UnknownHostException e) {
+			this.id = "SubSpace_" + ComputerImpl.getRandomChars();
+		}
+	}
+
+	/**
+	 * Registers this sub-space with the root compute space
+	 *
+	 * @param rootSpace
+	 *            Root compute space
+	 * @throws RemoteException
+	 */
+	public void attach(Computer2Space rootSpace) throws RemoteException {
+		this.rootSpace = rootSpace;
+		rootSpace.register(this, this.getId(), Runtime.getRuntime()
+				.availableProcessors());
+		if (ring == null) {
+			return;
+		}
+		// The root space is sharded
+		for (Computer2Space shard : shards.values()) {
+			if (!shard.equals(rootSpace)) {
+				shard.register(this, this.getId(), Runtime.getRuntime()
+						.availableProcessors());
+			}
+		}
+	}
+
+	/**
+	 * Tasks handed over by the root space are queued even if no local
+	 * computer has registered yet
+	 *
+	 * @see system.Computer#addTasks(List)
+	 */
+	@Override
+	public void addTasks(List<Task<?>> listOfTasks) throws RemoteException {
+		System.err.println(this.getId() + " received from root space : "
+				+ listOfTasks.size() + " task(s)");
+		for (Task<?> t : listOfTasks) {
+			relayedTasks.add(t.getId());
+			this.enqueue(t);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see system.Computer#addTaskBatch(java.rmi.MarshalledObject)
+	 */
+	@Override
+	public void addTaskBatch(MarshalledObject<List<Task<?>>> batch)
+			throws RemoteException {
+		try {
+			this.addTasks(batch.get());
+		} catch (IOException e) {
+			throw new UnmarshalException("Unable to read batch of tasks", e);
+		} catch (ClassNotFoundException e) {
+			throw new UnmarshalException("Unable to read batch of tasks", e);
+		}
+	}
+
+	/**
+	 * Forwards the final result of a relayed task to the root space
+	 *
+	 * @see system.SpaceImpl#relayResult(Task, Result)
+	 */
+	@Override
+	protected boolean relayResult(Task<?> t, Result<?> result)
+			throws RemoteException {
+		if (!relayedTasks.remove(t.getId())) {
+			return false;
+		}
+		this.sendResults(result);
+		return true;
+	}
+
+	/**
+	 * Shared objects accepted from local computers are forwarded to the root
+	 * space
+	 *
+	 * @see system.SpaceImpl#broadcast(Broadcast)
+	 */
+	@Override
+	public void broadcast(Broadcast broadcast) throws RemoteException {
+		super.broadcast(broadcast);
+		Shared<?> newShared = broadcast.getShared();
+		if (this.getShared() == newShared && rootSpace != null) {
+			rootSpace.broadcast(new Broadcast(newShared, this.getId()));
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see system.Computer#broadcast(system.Shared)
+	 */
+	@Override
+	public boolean broadcast(Shared<?> proposedShared) throws RemoteException {
+		this.broadcast(new Broadcast(proposedShared, this.getId()));
+		return this.getShared() == proposedShared;
+	}
+
+	/**
+	 * Shared objects received from the root space are propagated to all
+	 * local computers
+	 *
+	 * @see system.Computer#setShared(Shared)
+	 */
+	@Override
+	public void setShared(Shared<?> newShared) {
+		super.setShared(newShared);
+		for (ComputerProxy cp : this.getProxies()) {
+			try {
+				cp.setShared(newShared);
+			} catch (RemoteException e) {
+				System.err.println(this.getId() + " -> Computer "
+						+ cp.getId() + " is not reachable");
+			}
+		}
+	}
+
+	/**
+	 * Local computers follow the sequential mode requested by the root space
+	 *
+	 * @see system.SpaceImpl#register(Computer, String, int)
+	 */
+	@Override
+	public synchronized void register(Computer computer, String id,
+			int numOfProcessors) throws RemoteException {
+		super.register(computer, id, numOfProcessors);
+		if (sequentialMode) {
+			computer.setSequentialMode(true);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see system.Computer#setSequentialMode(boolean)
+	 */
+	@Override
+	public void setSequentialMode(boolean sequentialMode)
+			throws RemoteException {
+		this.sequentialMode = sequentialMode;
+		for (ComputerProxy cp : this.getProxies()) {
+			cp.getCompObj().setSequentialMode(sequentialMode);
+		}
+	}
+
+	/**
+	 * The number of relayed tasks whose results have not yet been forwarded
+	 *
+	 * @see system.Computer#getTaskQueueSize()
+	 */
+	@Override
+	public Integer getTaskQueueSize() throws RemoteException {
+		return relayedTasks.size();
+	}
+
+	/**
+	 * A sub-space runs no workers of its own. It only accepts as many relayed
+	 * tasks as the root space allows, but never fewer than
+	 * {@link #RELAY_QUEUE_SIZE}.
+	 *
+	 * @see system.Computer#startWorkers(int, int)
+	 */
+	@Override
+	public void startWorkers(int numOfWorkers, int taskQueueMaxSize)
+			throws RemoteException {
+		this.taskQueueMaxSize = Math.max(taskQueueMaxSize, RELAY_QUEUE_SIZE);
+		System.out.println(this.getId() + " -> Relaying up to "
+				+ this.taskQueueMaxSize + " task(s) from root space");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see system.Computer#sendResults(api.Result)
+	 */
+	@Override
+	public void sendResults(Result<?> result) throws RemoteException {
+		if (ring != null) {
+			shards.get(ring.getOwner(result.getId())).sendResult(result,
+					this.getId());
+			return;
+		}
+		rootSpace.sendResult(result, this.getId());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see system.Computer#setShards(system.ShardRing, java.util.Map)
+	 */
+	@Override
+	public void setShards(ShardRing ring, Map<String, Computer2Space> spaces)
+			throws RemoteException {
+		this.shards = spaces;
+		this.ring = ring;
+	}
+
+	/**
+	 * Local computers forward values among themselves as configured by this
+	 * sub-space. Final results of relayed tasks are always returned to the
+	 * root space.
+	 * 
+	 * @see system.Computer#setResultForwarding(boolean)
+	 */
+	@Override
+	public void setResultForwarding(boolean forwarding)
+			throws RemoteException {
+	}
+
+	/**
+	 * A sub-space holds no successors on behalf of the root space, so values
+	 * are never forwarded to it
+	 * 
+	 * @see system.Computer#putValue(String, String, Object)
+	 */
+	@Override
+	public void putValue(String parentId, String childId, Object value)
+			throws RemoteException {
+		System.err.println(this.getId() + " -> No task waiting for result "
+				+ childId);
+	}
+
+	/**
+	 * Results of relayed tasks are always returned to the root space, values
+	 * included
+	 * 
+	 * @see system.Computer#requestValues(List)
+	 */
+	@Override
+	public void requestValues(List<String> taskIds) throws RemoteException {
+	}
+
+	/**
+	 * Local computers follow the advice measured by this sub-space, which
+	 * dispatches their tasks
+	 * 
+	 * @see system.Computer#setGranularityAdvice(GranularityAdvice)
+	 */
+	@Override
+	public void setGranularityAdvice(GranularityAdvice advice)
+			throws RemoteException {
+	}
+
+	/**
+	 * Tasks never execute on a sub-space
+	 * 
+	 * @see system.Computer#adviseSplit(Task)
+	 */
+	@Override
+	public Boolean adviseSplit(Task<?> task) throws RemoteException {
+		return null;
+	}
+
+	/**
+	 * Tasks never execute on a sub-space
+	 * 
+	 * @see system.Computer#hasIdleCapacity()
+	 */
+	@Override
+	public boolean hasIdleCapacity() throws RemoteException {
+		return false;
+	}
+
+	/**
+	 * Relayed tasks cannot be recalled once handed over. Results of
+	 * cancelled tasks are discarded by the root space.
+	 *
+	 * @see system.Computer#cancelTasks(List)
+	 */
+	@Override
+	public List<String> cancelTasks(List<String> taskIds)
+			throws RemoteException {
+		return new Vector<String>();
+	}
+
+	/**
+	 * Relayed tasks cannot be recalled once handed over. Results of the
+	 * abandoned computation are discarded by the root space.
+	 *
+	 * @see system.Computer#abandonJob()
+	 */
+	@Override
+	public void abandonJob() throws RemoteException {
+	}
+
+	@Override
+	public int getTaskQueueMaxSize() {
+		return this.taskQueueMaxSize;
+	}
+
+	@Override
+	public void setTaskQueueMaxSize(int maxSize) {
+		this.taskQueueMaxSize = maxSize;
+	}
+
+	@Override
+	public String getId() {
+		return this.id;
+	}
+
+	@Override
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	/**
+	 * Starts a sub-space, binds it into an RMI registry for local computers
+	 * and registers it with the root compute space
+	 *
+	 * @param args
+	 *            Command-line arguments : root compute space (host:port),
+	 *            port of the registry of this sub-space, latency switch (0/1)
+	 *            and multicore switch (0/1)
+	 */
+	public static void main(String[] args) {
+		String rootSpaceServer = args[0];
+		int port = Integer.parseInt(args[1]);
+		boolean latencySwitch = args[2].equals("1");
+		boolean mcoreSwitch = args[3].equals("1");
+
+		if (System.getSecurityManager() == null) {
+			System.setSecurityManager(new SecurityManager());
+		}
+		try {
+			SubSpace subSpace = new SubSpace();
+			subSpace.setLatencyOptimization(latencySwitch);
+			subSpace.setMcoreSwitch(mcoreSwitch);
+			Registry registry = LocateRegistry.createRegistry(port);
+			registry.rebind(Computer2Space.SERVICE_NAME, subSpace);
+			System.out.println("SubSpace -> Sub-space instance bound on port "
+					+ port);
+
+			Computer2Space rootSpace = (Computer2Space) Naming.lookup("//"
+					+ rootSpaceServer + "/" + Computer2Space.SERVICE_NAME);
+			subSpace.attach(rootSpace);
+			System.out.println("SubSpace -> Registered with root space : "
+					+ subSpace.getId());
+		} catch (RemoteException e) {
+			System.err.println("SubSpace Remote exception : ");
+			e.printStackTrace();
+		} catch (MalformedURLException e) {
+			System.err.println("SubSpace Malformed exception : ");
+			e.printStackTrace();
+		} catch (NotBoundException e) {
+			System.err.println("SubSpace NotBound exception : ");
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,230 @@
+package system;
+
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.Vector;
+
+import api.Result;
+import api.SubTaskGenerator;
+import api.Task;
+
+/**
+ * Stands in the queue of a computer for the subtasks of a locally composed
+ * task that have not been built yet ({@link api.SubTaskGenerator}). A worker
+ * that takes the cursor from a queue builds the next subtask and executes it
+ * in its place, and the cursor is queued again as long as subtasks remain.
+ * Cursors never leave the computer that queued them.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ *
+ */
+public class SubTaskCursor implements Task<Object> {
+
+	// Distinguishes the ID of a cursor from the ID of its task
+	private static final String CURSOR_SUFFIX = "#children";
+
+	private Task<?> parent;
+	private SubTaskGenerator<?> generator;
+	private int next;
+	private Task.QueuingStatus queuingStatus;
+	private Computer computer;
+
+	/**
+	 *
+	 * @param parent
+	 *            Task whose subtasks are generated
+	 * @param generator
+	 *            Generator of the subtasks of the task
+	 */
+	public SubTaskCursor(Task<?> parent, SubTaskGenerator<?> generator) {
+		this.parent = parent;
+		this.generator = generator;
+		this.next = 0;
+		this.queuingStatus = Task.QueuingStatus.NOT_QUEUED;
+	}
+
+	/**
+	 *
+	 * @return Task whose subtasks are generated
+	 */
+	public Task<?> getParent() {
+		return parent;
+	}
+
+	/**
+	 *
+	 * @return Generator of the subtasks
+	 */
+	public SubTaskGenerator<?> getGenerator() {
+		return generator;
+	}
+
+	/**
+	 * Claims the position of the next subtask to be built
+	 *
+	 * @return Position of the subtask, or -1 if all subtasks have been built
+	 */
+	public synchronized int claim() {
+		if (next >= generator.size()) {
+			return -1;
+		}
+		return next++;
+	}
+
+	/**
+	 *
+	 * @return true if some subtasks have not been claimed yet
+	 */
+	public synchronized boolean hasNext() {
+		return next < generator.size();
+	}
+
+	/**
+	 * Builds all subtasks of a generator, leaving out those that can be pruned
+	 *
+	 * @param generator
+	 *            Generator of the subtasks
+	 * @return Subtasks that cannot be pruned
+	 */
+	public static <T> List<Task<T>> generateAll(SubTaskGenerator<T> generator) {
+		List<Task<T>> subTasks = new Vector<Task<T>>();
+		for (int i = 0; i < generator.size(); i++) {
+			Task<T> subTask = generator.generate(i);
+			if (subTask != null) {
+				subTasks.add(subTask);
+			}
+		}
+		return subTasks;
+	}
+
+	/**
+	 * Cursors are never executed, workers execute the subtasks they build
+	 *
+	 * @see api.Task#execute()
+	 */
+	@Override
+	public Result<?> execute() {
+		return null;
+	}
+
+	@Override
+	public Task.Status getStatus() {
+		return Task.Status.DECOMPOSE;
+	}
+
+	@Override
+	public void setStatus(Task.Status s) {
+	}
+
+	@Override
+	public Task.QueuingStatus getQueuingStatus() {
+		return queuingStatus;
+	}
+
+	@Override
+	public void setQueuingStatus(Task.QueuingStatus status) {
+		this.queuingStatus = status;
+	}
+
+	@Override
+	public String getParentId() {
+		return parent.getId();
+	}
+
+	@Override
+	public void setParentId(String id) {
+	}
+
+	@Override
+	public String getId() {
+		return parent.getId() + CURSOR_SUFFIX;
+	}
+
+	@Override
+	public void setId(String taskId) {
+	}
+
+	@Override
+	public int getDecompositionSize() {
+		return 0;
+	}
+
+	@Override
+	public List<String> getChildIds() {
+		return new Vector<String>();
+	}
+
+	@Override
+	public Object getShared() throws RemoteException {
+		return computer.getShared();
+	}
+
+	@Override
+	public void setShared(Shared<?> shared) throws RemoteException {
+		computer.broadcast(shared);
+	}
+
+	@Override
+	public void setComputer(Computer computer) {
+		this.computer = computer;
+	}
+
+	@Override
+	public Computer getComputer() {
+		return computer;
+	}
+
+	@Override
+	public void putValues(List<?> values) {
+	}
+
+	@Override
+	public List<Object> getValues() {
+		return null;
+	}
+
+	@Override
+	public void setParentHost(Computer parentHost) {
+	}
+
+	@Override
+	public Computer getParentHost() {
+		return null;
+	}
+
+	@Override
+	public boolean hasCheapCompose() {
+		return false;
+	}
+
+	@Override
+	public boolean isFineGrained() {
+		return false;
+	}
+
+	@Override
+	public boolean shouldSplit() {
+		return false;
+	}
+
+	@Override
+	public boolean shouldDonate() {
+		return false;
+	}
+
+	@Override
+	public Task<Object> getContinuation() {
+		return this;
+	}
+
+	@Override
+	public Object getSubproblemKey() {
+		return null;
+	}
+
+	@Override
+	public boolean isPrunable(Shared<?> shared) {
+		return false;
+	}
+}
@@ -0,0 +1,277 @@
+package system;
+
+import java.rmi.RemoteException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+
+import api.Result;
+import api.Task;
+
+/**
+ * Keeps track of the subproblems solved by the tasks of a computation, so
+ * that a subproblem is computed only once ({@link api.Task#getSubproblemKey()}).
+ * The first task found for a subproblem computes it. Tasks found later for
+ * the same subproblem are not scheduled: they wait until the first task has
+ * computed its value, or receive the value right away if it is already known.
+ * Trees of tasks thus become DAGs, e.g. the Fibonacci tree of F(n) has only n
+ * distinct subproblems.
+ *
+ * A task whose value is forwarded to the computer holding its parent reports
+ * its value to the compute space only if tasks wait for it, which the compute
+ * space asks for ({@link system.Computer#requestValues(List)}). If a task
+ * completes without reporting its value, one of the tasks waiting for it is
+ * scheduled to compute the subproblem instead.
+ *
+ * Values are kept until the next computation starts, so that all tasks of a
+ * stream ({@link api.Client2Space#beginStream(Shared)}) share them as if they
+ * made up a single computation. Results are also kept across computations in
+ * a {@link system.ResultCache ResultCache}, from which tasks solving a known
+ * subproblem receive their values, and from which the results of whole
+ * computations are returned to clients right away.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ *
+ */
+public class SubproblemTable {
+
+	private SpaceImpl space;
+	// Subproblems being computed, and the IDs of the tasks computing them
+	private Map<String, String> owners;
+	private Map<String, String> ownedKeys;
+	// Tasks waiting for subproblems being computed
+	private Map<String, List<Task<?>>> waiting;
+	// Results of the subproblems computed so far
+	private Map<String, Result<?>> solved;
+	// Tasks whose values are wanted, to be requested once they are dispatched
+	private Set<String> wantedIds;
+	private ResultCache cache;
+
+	/**
+	 *
+	 * @param space
+	 *            Compute space to which the values of waiting tasks are
+	 *            delivered
+	 */
+	public SubproblemTable(SpaceImpl space) {
+		this.space = space;
+		this.owners = new HashMap<String, String>();
+		this.ownedKeys = new HashMap<String, String>();
+		this.waiting = new HashMap<String, List<Task<?>>>();
+		this.solved = new HashMap<String, Result<?>>();
+		this.wantedIds = new HashSet<String>();
+		this.cache = new ResultCache();
+	}
+
+	/**
+	 * Looks up the result of a task submitted by a client. If it is not
+	 * known, the task is registered so that its result is cached once it is
+	 * computed.
+	 *
+	 * @param task
+	 *            Task submitted by a client
+	 * @return Result carrying the value of the task, or null if it has to be
+	 *         computed
+	 */
+	public Result<?> lookUp(Task<?> task) {
+		String key = getKey(task);
+		if (key == null) {
+			return null;
+		}
+		Result<?> result = cache.get(key);
+		if (result != null) {
+			return copyFor(task, result);
+		}
+		synchronized (this) {
+			owners.put(key, task.getId());
+			ownedKeys.put(task.getId(), key);
+		}
+		return null;
+	}
+
+	/**
+	 * Attaches a task to the subproblem it solves, if another task already
+	 * solves it
+	 *
+	 * @param task
+	 *            Task about to be scheduled
+	 * @return true if the task must not be scheduled, since its value is
+	 *         already known or will be delivered once it is known
+	 * @throws RemoteException
+	 */
+	public boolean attach(Task<?> task) throws RemoteException {
+		String key = getKey(task);
+		if (key == null) {
+			return false;
+		}
+		Result<?> result = cache.get(key);
+		String wanted = null;
+		synchronized (this) {
+			if (result == null) {
+				result = solved.get(key);
+			}
+			if (result == null) {
+				String owner = owners.get(key);
+				if (owner == null) {
+					owners.put(key, task.getId());
+					ownedKeys.put(task.getId(), key);
+					return false;
+				}
+				if (owner.equals(task.getId())) {
+					// Another copy of the task computing the subproblem
+					return false;
+				}
+				List<Task<?>> tasks = waiting.get(key);
+				if (tasks == null) {
+					tasks = new Vector<Task<?>>();
+					waiting.put(key, tasks);
+					wanted = owner;
+				}
+				tasks.add(task);
+			}
+		}
+		if (wanted != null) {
+			if (!space.requestValue(wanted)) {
+				synchronized (this) {
+					wantedIds.add(wanted);
+				}
+			}
+			return true;
+		}
+		if (result == null) {
+			return true;
+		}
+		space.resolveTask(task, copyFor(task, result));
+		return true;
+	}
+
+	/**
+	 * Records the value of a task, if it computes a subproblem, and delivers
+	 * it to the tasks waiting for the same subproblem. If the value is not
+	 * known, one of the waiting tasks is scheduled instead.
+	 *
+	 * @param task
+	 *            Task that computed its value
+	 * @param result
+	 *            Result carrying the value of the task
+	 * @throws RemoteException
+	 */
+	public void complete(Task<?> task, Result<?> result)
+			throws RemoteException {
+		List<Task<?>> tasks = null;
+		String key;
+		Task<?> successor = null;
+		synchronized (this) {
+			key = ownedKeys.remove(task.getId());
+			if (key == null) {
+				return;
+			}
+			owners.remove(key);
+			wantedIds.remove(task.getId());
+			if (result.getValue() == null) {
+				// The value was not reported, or the task was pruned
+				successor = this.takeSuccessor(key);
+			} else {
+				solved.put(key, result);
+				tasks = waiting.remove(key);
+			}
+		}
+		if (result.getValue() == null) {
+			if (successor != null) {
+				space.enqueue(successor);
+			}
+			return;
+		}
+		cache.put(key, result);
+		if (tasks != null) {
+			for (Task<?> t : tasks) {
+				space.resolveTask(t, copyFor(t, result));
+			}
+		}
+	}
+
+	/**
+	 * Takes the IDs of tasks about to be dispatched whose values are wanted,
+	 * since other tasks wait for them
+	 *
+	 * @param tasks
+	 *            Tasks about to be dispatched
+	 * @return IDs of the tasks whose values are to be requested from the
+	 *         computer they are dispatched to
+	 */
+	public synchronized List<String> takeWantedIds(List<Task<?>> tasks) {
+		List<String> ids = new Vector<String>();
+		if (wantedIds.isEmpty()) {
+			return ids;
+		}
+		for (Task<?> task : tasks) {
+			if (task instanceof TaskBundle) {
+				ids.addAll(this.takeWantedIds(((TaskBundle) task).getTasks()));
+			} else if (wantedIds.remove(task.getId())) {
+				ids.add(task.getId());
+			}
+		}
+		return ids;
+	}
+
+	/**
+	 * Forgets all subproblems, once a new computation starts. The results
+	 * kept in the cache are not affected.
+	 */
+	public synchronized void clear() {
+		owners.clear();
+		ownedKeys.clear();
+		waiting.clear();
+		solved.clear();
+		wantedIds.clear();
+	}
+
+	/*
+	 * Takes one of the tasks waiting for a subproblem whose value is not
+	 * known, to be scheduled so that it computes the subproblem for the
+	 * others. Must be called while holding the lock of this table.
+	 */
+	private Task<?> takeSuccessor(String key) {
+		List<Task<?>> tasks = waiting.get(key);
+		if (tasks == null) {
+			return null;
+		}
+		Task<?> task = tasks.remove(0);
+		owners.put(key, task.getId());
+		ownedKeys.put(task.getId(), key);
+		if (tasks.isEmpty()) {
+			waiting.remove(key);
+		} else {
+			wantedIds.add(task.getId());
+		}
+		return task;
+	}
+
+	// Subproblems of different task types never match
+	private static String getKey(Task<?> task) {
+		Object key = task.getSubproblemKey();
+		if (key == null) {
+			return null;
+		}
+		return task.getClass().getName() + ":" + key;
+	}
+
+	// Result of a task solving the same subproblem as that of the result
+	private static Result<?> copyFor(Task<?> task, Result<?> result) {
+		if (result instanceof IntResult) {
+			IntResult copy = new IntResult(task.getId(), task.getParentId());
+			if (((IntResult) result).hasIntValue()) {
+				copy.setIntValue(((IntResult) result).getIntValue());
+			}
+			return copy;
+		}
+		Result<Object> copy = new ResultImpl<Object>(task.getId(), task
+				.getParentId());
+		copy.setValue(result.getValue());
+		return copy;
+	}
+}
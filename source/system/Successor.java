@@ -1,9 +1,13 @@
 package system;
 
 import java.rmi.RemoteException;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.Vector;
 
+import api.Foldable;
+import api.Result;
 import api.Task;
 
 /**
@@ -24,7 +28,7 @@ public class Successor{
 
 	
 	private String id;
-	private SpaceImpl space;
+	private SuccessorHost host;
 	private Task<?> task;
 	private Closure aClosure;
 
@@ -38,30 +42,47 @@ public class Successor{
 	
 
 	/**
+	 * Only the continuation of the task ({@link api.Task#getContinuation()})
+	 * is held while its children are computed.
 	 * 
+	 * @param aTask
+	 *            Task object representing the computational task of this thread
+	 * @param host
+	 *            Compute space or computer holding this thread
 	 * @param joinCounter
 	 *            Number of missing variables in the internal Closure object
 	 */
-	private Successor(int joinCounter) {
-	
+	public Successor(Task<?> aTask, SuccessorHost host, int joinCounter) {
+		this.host = host;
+		this.task = aTask.getContinuation();
+		this.id = task.getId();
+		// The closure folds values according to the type of the task
 		this.aClosure = new Closure(joinCounter);
+
 	}
 
 	/**
+	 * Rebuilds a successor whose closure already received some of its values,
+	 * e.g. while recovering the state of a compute space from its journal.
 	 * 
 	 * @param aTask
 	 *            Task object representing the computational task of this thread
-	 * @param spaceImpl
+	 * @param host
+	 *            Compute space or computer holding this thread
 	 * @param joinCounter
 	 *            Number of missing variables in the internal Closure object
+	 * @param values
+	 *            Values already received by the internal Closure object
+	 * @param arrivedIds
+	 *            IDs of the child tasks that produced those values
 	 */
-	public Successor(Task<?> aTask, SpaceImpl spaceImpl, int joinCounter) {
-		this(joinCounter);
-		this.space = spaceImpl;
-		this.task = aTask;
-		this.id = task.getId();
-		
-
+	public Successor(Task<?> aTask, SuccessorHost host, int joinCounter,
+			List<Object> values, Set<String> arrivedIds) {
+		this(aTask, host, joinCounter);
+		for (Object value : values) {
+			this.aClosure.add(value);
+		}
+		this.aClosure.arrivedIds.addAll(arrivedIds);
 	}
 
 	
@@ -69,6 +90,14 @@ public class Successor{
 		return this.id;
 	}
 
+	/**
+	 * 
+	 * @return Task waiting for the values of its children
+	 */
+	public Task<?> getTask() {
+		return this.task;
+	}
+
 	/**
 	 * 
 	 * Closure used to store the missing arguments in <a
@@ -76,12 +105,21 @@ public class Successor{
 	 * >Continuation-passing style</a> of programming used in <a
 	 * href="http://en.wikipedia.org/wiki/Cilk">Cilk</a>.
 	 * 
+	 * If the task folds the values of its subtasks ({@link api.Foldable
+	 * Foldable}), each value is folded into a single value as soon as it
+	 * arrives.
+	 * 
 	 * @author Manasa Chandrasekhar
 	 * @author Kowshik Prakasam
 	 * 
 	 */
 	public class Closure {
 		private List<Object> values;
+		// Values folded so far, if the task folds them
+		private Object accumulated;
+		// Values folded so far, if the task folds them as ints
+		private IntAccumulator ints;
+		private Set<String> arrivedIds;
 		private int joinCounter;
 
 		/**
@@ -92,39 +130,121 @@ public class Successor{
 		public Closure(int joinCounter) {
 			this.joinCounter = joinCounter;
 			this.values = new Vector<Object>();
+			this.ints = new IntAccumulator(task);
+			this.arrivedIds = new HashSet<String>();
 		}
 
 		/**
-		 * Adds an argument to the Closure's list of values
+		 * Adds an argument to the Closure's list of values. A value reported
+		 * more than once for the same child task is ignored.
 		 * 
+		 * @param childId
+		 *            ID of the child task that produced the value
 		 * @param value
 		 */
-		public void put(Object value) {
+		public synchronized void put(String childId, Object value) {
+			if (!arrivedIds.add(childId)) {
+				return;
+			}
 			if (value != null) {
-				values.add(value);
+				this.add(value);
+			}
+			this.join();
+		}
+
+		/**
+		 * Adds the value carried by a result, without boxing it if it is an
+		 * int and the task folds ints
+		 * 
+		 * @param childId
+		 *            ID of the child task that produced the result
+		 * @param result
+		 *            Result carrying the value
+		 */
+		public synchronized void putResult(String childId, Result<?> result) {
+			if (!(result instanceof IntResult) || !ints.foldsInts()) {
+				this.put(childId, result.getValue());
+				return;
 			}
+			if (!arrivedIds.add(childId)) {
+				return;
+			}
+			// A result without an int value was pruned
+			ints.add(result);
+			this.join();
+		}
+
+		// Counts an arrived value, and hands all values to the task once the
+		// last one has arrived
+		private void join() {
 			joinCounter--;
 			if (this.joinCounter == 0) {
-				task.putValues(values);
+				List<Object> others = new Vector<Object>(this.values);
+				if (accumulated != null) {
+					others.add(accumulated);
+				}
+				ints.putValues(others);
 				task.setStatus(Task.Status.COMPOSE);
 				try {
-					space.put(task);
+					host.put(task);
 				} catch (RemoteException e) {
 					System.err.println("RemoteException inside Closure");
 					e.printStackTrace();
 				}
-				space.removeFromWaitQ(task);
+				host.removeFromWaitQ(task);
 			
 			}
 		}
 
+		// Stores a value, or folds it into the values stored so far
+		private void add(Object value) {
+			if (ints.foldsInts() && value instanceof Integer) {
+				ints.add((Integer) value);
+			} else if (!(task instanceof Foldable)) {
+				values.add(value);
+			} else if (accumulated == null) {
+				accumulated = value;
+			} else {
+				accumulated = fold((Foldable<?>) task, accumulated, value);
+			}
+		}
+
 		/**
 		 * 
-		 * @return All values stored by the Closure
+		 * @return All values stored by the Closure. If the task folds them,
+		 *         only the folded value.
 		 */
-		public final List<Object> getValues() {
+		public final synchronized List<Object> getValues() {
+			if (accumulated != null || ints.hasValue()) {
+				List<Object> folded = new Vector<Object>(this.values);
+				folded.add(ints.hasValue() ? ints.getValue() : accumulated);
+				return folded;
+			}
 			return this.values;
 		}
+
+		/**
+		 * 
+		 * @return Number of values still missing
+		 */
+		public synchronized int getJoinCounter() {
+			return this.joinCounter;
+		}
+
+		/**
+		 * 
+		 * @return IDs of the child tasks whose values have been received
+		 */
+		public synchronized Set<String> getArrivedIds() {
+			return new HashSet<String>(this.arrivedIds);
+		}
+	}
+
+	// Values of subtasks have the value type of their parent
+	@SuppressWarnings("unchecked")
+	private static <T> Object fold(Foldable<T> folder, Object accumulated,
+			Object value) {
+		return folder.fold((T) accumulated, (T) value);
 	}
 
 	/**
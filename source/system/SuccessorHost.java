@@ -0,0 +1,34 @@
+package system;
+
+import java.rmi.RemoteException;
+
+import api.Task;
+
+/**
+ * Holder of {@link system.Successor Successor} threads. Successors are
+ * normally held by the compute space, but a computer holds the successors of
+ * subtrees that it composes locally.
+ * 
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ * 
+ */
+public interface SuccessorHost {
+
+	/**
+	 * Used by a successor whose closure has received all its values
+	 * 
+	 * @param aTask
+	 *            Task ready for its Conquer phase
+	 * @return true if the task was queued for execution
+	 * @throws RemoteException
+	 */
+	boolean put(Task<?> aTask) throws RemoteException;
+
+	/**
+	 * 
+	 * @param task
+	 *            Task whose successor is no longer waiting
+	 */
+	void removeFromWaitQ(Task<?> task);
+}
@@ -0,0 +1,253 @@
+package system;
+
+import java.io.Serializable;
+import java.rmi.RemoteException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Vector;
+
+import api.Result;
+import api.Task;
+
+/**
+ * A bundle of fine-grained tasks ({@link api.Task#isFineGrained()}) that the
+ * compute space dispatches to a computer as a single task. The computer
+ * executes the tasks one after the other and returns all their results in a
+ * single {@link system.BundleResult BundleResult}.
+ *
+ * The compute space keeps track of every task of the bundle, so the bundle
+ * itself never appears in a successor and has no value of its own.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ *
+ */
+public class TaskBundle implements Task<Object>, Serializable {
+
+	private static final long serialVersionUID = 2926108452167553092L;
+
+	// Distinguishes the ID of a bundle from the IDs of the tasks it holds
+	private static final String BUNDLE_SUFFIX = "#bundle";
+
+	private List<Task<?>> tasks;
+	private Task.Status status;
+	private Task.QueuingStatus queuingStatus;
+	private transient Computer computer;
+	private transient Set<String> prunedIds;
+
+	public TaskBundle() {
+		this.tasks = new Vector<Task<?>>();
+		this.status = Task.Status.DECOMPOSE;
+		this.queuingStatus = Task.QueuingStatus.NOT_QUEUED;
+	}
+
+	/**
+	 *
+	 * @param task
+	 *            Fine-grained task to be added to the bundle
+	 */
+	public void add(Task<?> task) {
+		tasks.add(task);
+	}
+
+	/**
+	 *
+	 * @return Tasks held by the bundle
+	 */
+	public List<Task<?>> getTasks() {
+		return tasks;
+	}
+
+	/**
+	 *
+	 * @return Number of tasks held by the bundle
+	 */
+	public int size() {
+		return tasks.size();
+	}
+
+	/**
+	 * Executes all tasks of the bundle, except those that can be pruned
+	 * ({@link api.Task#isPrunable(Shared)}), which get a null value
+	 *
+	 * @return A {@link system.BundleResult BundleResult} holding the results
+	 *         of all tasks, in the order of the tasks
+	 */
+	@Override
+	public Result<?> execute() {
+		return this.execute(false);
+	}
+
+	/**
+	 * Executes all tasks of the bundle, except those that can be pruned,
+	 * and times each of them
+	 *
+	 * @param sequential
+	 *            true if each task should be executed together with all the
+	 *            subtasks it decomposes into ({@link system.SequentialExecutor
+	 *            SequentialExecutor})
+	 * @return A {@link system.BundleResult BundleResult} holding the results
+	 *         of all tasks, in the order of the tasks
+	 */
+	BundleResult execute(boolean sequential) {
+		BundleResult results = new BundleResult(tasks.get(0).getId());
+		this.prunedIds = new HashSet<String>();
+		for (Task<?> task : tasks) {
+			if (computer instanceof ComputerImpl
+					&& ((ComputerImpl) computer).isPrunable(task)) {
+				prunedIds.add(task.getId());
+				results.add(new ResultImpl<Object>(task.getId(), task
+						.getParentId()));
+				continue;
+			}
+			long start = System.nanoTime();
+			Result<?> r = sequential ? SequentialExecutor.execute(task) : task
+					.execute();
+			if (r != null) {
+				r.setExecutionTime(System.nanoTime() - start);
+			}
+			results.add(r);
+		}
+		return results;
+	}
+
+	/**
+	 * 
+	 * @param task
+	 *            A task of the bundle
+	 * @return true if the task was pruned instead of being executed
+	 */
+	public boolean isPruned(Task<?> task) {
+		return prunedIds != null && prunedIds.contains(task.getId());
+	}
+
+	@Override
+	public Task.Status getStatus() {
+		return status;
+	}
+
+	@Override
+	public void setStatus(Task.Status s) {
+		this.status = s;
+	}
+
+	@Override
+	public Task.QueuingStatus getQueuingStatus() {
+		return queuingStatus;
+	}
+
+	@Override
+	public void setQueuingStatus(Task.QueuingStatus status) {
+		this.queuingStatus = status;
+	}
+
+	@Override
+	public String getParentId() {
+		return this.getId();
+	}
+
+	@Override
+	public void setParentId(String id) {
+	}
+
+	@Override
+	public String getId() {
+		return tasks.get(0).getId() + BUNDLE_SUFFIX;
+	}
+
+	@Override
+	public void setId(String taskId) {
+	}
+
+	@Override
+	public int getDecompositionSize() {
+		return 0;
+	}
+
+	@Override
+	public List<String> getChildIds() {
+		return new Vector<String>();
+	}
+
+	@Override
+	public Object getShared() throws RemoteException {
+		return computer.getShared();
+	}
+
+	@Override
+	public void setShared(Shared<?> shared) throws RemoteException {
+		computer.broadcast(shared);
+	}
+
+	/**
+	 * Sets the computer of all tasks of the bundle
+	 *
+	 * @see api.Task#setComputer(system.Computer)
+	 */
+	@Override
+	public void setComputer(Computer computer) {
+		this.computer = computer;
+		for (Task<?> task : tasks) {
+			task.setComputer(computer);
+		}
+	}
+
+	@Override
+	public Computer getComputer() {
+		return computer;
+	}
+
+	@Override
+	public void putValues(List<?> values) {
+	}
+
+	@Override
+	public List<Object> getValues() {
+		return null;
+	}
+
+	@Override
+	public void setParentHost(Computer parentHost) {
+	}
+
+	@Override
+	public Computer getParentHost() {
+		return null;
+	}
+
+	@Override
+	public boolean hasCheapCompose() {
+		return false;
+	}
+
+	@Override
+	public boolean isFineGrained() {
+		return false;
+	}
+
+	@Override
+	public boolean shouldSplit() {
+		return false;
+	}
+
+	@Override
+	public boolean shouldDonate() {
+		return false;
+	}
+
+	@Override
+	public Task<Object> getContinuation() {
+		return this;
+	}
+
+	@Override
+	public Object getSubproblemKey() {
+		return null;
+	}
+
+	@Override
+	public boolean isPrunable(Shared<?> shared) {
+		return false;
+	}
+}
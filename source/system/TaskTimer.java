@@ -0,0 +1,75 @@
+package system;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import api.Task;
+
+/**
+ * Records how long tasks of each type take from the moment they are handed
+ * over to a computer until their result reaches the compute space. A task
+ * type is identified by the class of the task together with its
+ * {@link api.Task.Status Status}, since the Divide and the Conquer phases of
+ * the same task usually have very different costs.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ *
+ */
+public class TaskTimer {
+
+	// Number of samples required before an expected duration is reported
+	private static final int MIN_SAMPLES = 10;
+
+	private Map<String, Timing> timings;
+
+	/**
+	 * Default constructor
+	 */
+	public TaskTimer() {
+		this.timings = new HashMap<String, Timing>();
+	}
+
+	/**
+	 *
+	 * @param task
+	 *            Task whose result has just been received
+	 * @param elapsedTime
+	 *            Time (in milliseconds) elapsed between dispatch and result
+	 */
+	public synchronized void record(Task<?> task, long elapsedTime) {
+		String type = getType(task);
+		Timing timing = timings.get(type);
+		if (timing == null) {
+			timing = new Timing();
+			timings.put(type, timing);
+		}
+		timing.samples++;
+		timing.totalTime += elapsedTime;
+	}
+
+	/**
+	 *
+	 * @param task
+	 *            Task whose type is being looked up
+	 * @return Average time (in milliseconds) taken by tasks of the same type,
+	 *         or -1 if too few tasks of that type have completed so far
+	 */
+	public synchronized long getExpectedDuration(Task<?> task) {
+		Timing timing = timings.get(getType(task));
+		if (timing == null || timing.samples < MIN_SAMPLES) {
+			return -1;
+		}
+		return timing.totalTime / timing.samples;
+	}
+
+	private String getType(Task<?> task) {
+		return task.getClass().getName() + ":" + task.getStatus();
+	}
+
+	// Running totals for a single task type
+	private static class Timing {
+		private long samples;
+		private long totalTime;
+	}
+}
@@ -9,40 +9,33 @@ import java.io.Serializable;
  * A class abstracting shared objects for the branch-and-bound TSP problem. The
  * class encapsulates an upper-bound value of type Double generated during
  * branch-and-bound. The upper-bound is nothing but the length of a feasible
- * tour of cities.
+ * tour of cities. Tours are minimized, as by any {@link system.Incumbent
+ * Incumbent} of a minimization problem; {@link #INFINITY} stands for the
+ * absence of a tour.
  * 
  * @author Manasa Chandrasekhar
  * @author Kowshik Prakasam
  * 
  */
-public class TspShared implements Shared<Double>, Serializable {
+public class TspShared extends Incumbent {
 
 	private static final long serialVersionUID = 165386141205567783L;
-	private double upperBound;
-	public static final Double INFINITY = -1.0d;
+	public static final double INFINITY = -1.0d;
 
 	public TspShared(double distance) {
-		this.upperBound = distance;
-
+		this(distance, null);
 	}
 
-	/*
-	 * (non-Javadoc)
+	/**
 	 * 
-	 * @see system.Shared#isNewerThan(system.Shared)
+	 * @param distance
+	 *            Length of the tour, or {@link #INFINITY}
+	 * @param tour
+	 *            Cities of the tour, in order
 	 */
-	@Override
-	public boolean isNewerThan(Shared<?> newShared) {
-		if (newShared instanceof TspShared) {
-			TspShared newTspShared = (TspShared) newShared;
-			double newUpperBound = newTspShared.get();
-			double existingUpperBound = this.get();
-			if (newUpperBound != INFINITY
-					&& (existingUpperBound == INFINITY || existingUpperBound > newUpperBound)) {
-				return false;
-			}
-		}
-		return true;
+	public TspShared(double distance, Serializable tour) {
+		super(distance == INFINITY ? Double.NaN : distance, true, tour);
+
 	}
 
 	/*
@@ -52,9 +45,17 @@ public class TspShared implements Shared<Double>, Serializable {
 	 */
 	@Override
 	public Double get() {
-		return this.upperBound;
+		return this.getUpperBound();
 	}
 	
+	/**
+	 * 
+	 * @return The upper-bound, without boxing it as {@link #get()} does
+	 */
+	public double getUpperBound() {
+		return this.hasValue() ? this.getValue() : INFINITY;
+	}
+
 	public String toString(){
 		return "Cost -> "+this.get();
 	}
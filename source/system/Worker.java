@@ -53,13 +53,37 @@ public class Worker implements Runnable {
 	public void run() {
 		System.out.println(comp.getId()
 				+ " -> Starting Worker thread with ID : " + this.getId());
+		comp.registerWorker();
 		while (true) {
 
 			Task<?> aTask = comp.getTaskFromQueue();
+			if (aTask instanceof SubTaskCursor) {
+				aTask = comp.pullSubTask((SubTaskCursor) aTask);
+			}
 
 			if (!(aTask == null)) {
-				Result<?> r = aTask.execute();
-				sink.putResult(r);
+				Result<?> r;
+				if (comp.isPrunable(aTask)) {
+					// The parent of the task receives a null value
+					r = new ResultImpl<Object>(aTask.getId(), aTask
+							.getParentId());
+				} else {
+					long start = System.nanoTime();
+					if (comp.isSequentialMode()) {
+						r = SequentialExecutor.execute(aTask);
+					} else {
+						r = aTask.execute();
+					}
+					if (r != null) {
+						r.setExecutionTime(System.nanoTime() - start);
+						comp.recordExecution(aTask, r);
+					}
+				}
+				if (comp.isTakenTaskAbandoned()) {
+					// The computation was abandoned while the task executed
+					continue;
+				}
+				sink.putResult(aTask, r);
 			}
 
 		}
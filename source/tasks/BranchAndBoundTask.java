@@ -0,0 +1,349 @@
+package tasks;
+
+import java.io.Serializable;
+import java.rmi.RemoteException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Stack;
+import java.util.Vector;
+
+import system.Incumbent;
+import system.ResultImpl;
+import system.Shared;
+import api.BranchAndBound;
+import api.Foldable;
+import api.Result;
+import api.SubTaskGenerator;
+import api.Task;
+
+/**
+ * Solves an optimization problem ({@link api.BranchAndBound BranchAndBound})
+ * by branch-and-bound. Each task explores the subtree below one node of the
+ * search tree. The value of a task is the best solution in its subtree, or
+ * null if the subtree was pruned or holds no solution better than the
+ * incumbent.
+ * 
+ * The best objective value found so far is shared among all tasks as an
+ * {@link system.Incumbent Incumbent}, which the client passes to the compute
+ * space as the shared object of the computation. A node whose bound cannot
+ * beat the incumbent is pruned before its task is built, while its task waits
+ * to be dispatched or executed ({@link #isPrunable(system.Shared)}), and
+ * again before it is explored. Children are explored best-first: the child
+ * with the most promising bound is built, dispatched and searched first.
+ * 
+ * A task splits into one subtask per child as long as its computer advises it
+ * to ({@link api.Task#shouldSplit()}), and searches its subtree depth-first
+ * otherwise.
+ * 
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ * 
+ * @param <N>
+ *            Type of the nodes of the search tree
+ */
+public class BranchAndBoundTask<N extends Serializable> extends TaskBase<N>
+		implements Serializable, Foldable<N> {
+
+	private static final long serialVersionUID = 8532109467326075542L;
+
+	/*
+	 * Recursion level beyond which subtrees are searched locally, until the
+	 * granularity controller of the computer has measured the tasks
+	 */
+	private static final int NUMBER_OF_LEVELS = 4;
+
+	private BranchAndBound<N> problem;
+	private N node;
+	private double bound;
+	private List<N> values;
+
+	/**
+	 * 
+	 * @param problem
+	 *            Problem to be solved
+	 * @param root
+	 *            Root of the search tree
+	 */
+	public BranchAndBoundTask(BranchAndBound<N> problem, N root) {
+		this(problem, root, DEFAULT_TASK_ID, DEFAULT_TASK_ID);
+	}
+
+	private BranchAndBoundTask(BranchAndBound<N> problem, N node,
+			String taskId, String parentId) {
+		super(taskId, parentId, Task.Status.DECOMPOSE,
+				Task.QueuingStatus.NOT_QUEUED, System.currentTimeMillis());
+		this.problem = problem;
+		this.node = node;
+		this.bound = problem.getBound(node);
+	}
+
+	/**
+	 * This constructor is used to build the continuation of a task waiting
+	 * for the values of its children, which does not need its node
+	 * 
+	 * @param waiting
+	 *            Task waiting for the values of its children
+	 */
+	private BranchAndBoundTask(BranchAndBoundTask<N> waiting) {
+		super(waiting.getId(), waiting.getParentId(), waiting.getStatus(),
+				waiting.getQueuingStatus(), waiting.getStartTime());
+		this.setParentHost(waiting.getParentHost());
+		this.problem = waiting.problem;
+	}
+
+	/**
+	 * Implements the decompose phase of branch-and-bound
+	 */
+	private Result<N> decompose() {
+		Result<N> r = new ResultImpl<N>(this.getId(), this.getParentId());
+		if (!this.getIncumbent().admits(this.bound)) {
+			// Pruned
+			return r;
+		}
+		if (problem.isComplete(node)) {
+			this.offer(node, problem.getObjective(node));
+			r.setValue(node);
+			return r;
+		}
+		if (this.shouldSplit()) {
+			r.setSubTaskGenerator(new ChildGenerator(this.expand(node)));
+			return r;
+		}
+		r.setValue(this.search());
+		return r;
+	}
+
+	/*
+	 * Searches the subtree of the node of this task depth-first, and returns
+	 * its best solution
+	 */
+	private N search() {
+		N bestNode = null;
+		double bestObjective = 0;
+		Stack<N> stack = new Stack<N>();
+		stack.push(node);
+		while (!stack.isEmpty()) {
+			N n = stack.pop();
+			double bound = problem.getBound(n);
+			if (bestNode != null && !this.isBetter(bound, bestObjective)) {
+				continue;
+			}
+			if (!this.getIncumbent().admits(bound)) {
+				continue;
+			}
+			if (problem.isComplete(n)) {
+				double objective = problem.getObjective(n);
+				if (bestNode == null || this.isBetter(objective, bestObjective)) {
+					bestNode = n;
+					bestObjective = objective;
+					this.offer(n, objective);
+				}
+				continue;
+			}
+			List<N> children = this.expand(n);
+			// The most promising child is searched first
+			for (int i = children.size() - 1; i >= 0; i--) {
+				stack.push(children.get(i));
+			}
+		}
+		return bestNode;
+	}
+
+	/**
+	 * Implements the compose phase of branch-and-bound
+	 */
+	private Result<N> compose() {
+		Result<N> r = new ResultImpl<N>(this.getId(), this.getParentId());
+		N bestNode = null;
+		for (N value : this.values) {
+			if (value != null) {
+				bestNode = (bestNode == null) ? value : this.fold(bestNode,
+						value);
+			}
+		}
+		r.setValue(bestNode);
+		return r;
+	}
+
+	// Children of a node, the most promising first
+	private List<N> expand(N n) {
+		List<N> children = new Vector<N>(problem.expand(n));
+		Collections.sort(children, new Comparator<N>() {
+			@Override
+			public int compare(N first, N second) {
+				double firstBound = problem.getBound(first);
+				double secondBound = problem.getBound(second);
+				return problem.isMinimization() ? Double.compare(firstBound,
+						secondBound) : Double.compare(secondBound, firstBound);
+			}
+		});
+		return children;
+	}
+
+	// Shares a solution, if it beats the incumbent
+	private void offer(N solution, double objective) {
+		Incumbent incumbent = this.getIncumbent();
+		if (incumbent.hasValue()
+				&& !incumbent.isBetter(objective, incumbent.getValue())) {
+			return;
+		}
+		try {
+			this.setShared(new Incumbent(objective, problem.isMinimization(),
+					solution));
+		} catch (RemoteException e) {
+			e.printStackTrace();
+		}
+	}
+
+	// Returns the incumbent from the computer's shared object
+	private Incumbent getIncumbent() {
+		try {
+			Object shared = this.getShared();
+			if (shared instanceof Incumbent) {
+				return (Incumbent) shared;
+			}
+		} catch (RemoteException e) {
+			e.printStackTrace();
+		}
+		return new Incumbent(problem.isMinimization());
+	}
+
+	private boolean isBetter(double first, double second) {
+		return problem.isMinimization() ? first < second : first > second;
+	}
+
+	/**
+	 * Generates the child tasks of this task, the most promising first. A
+	 * child whose bound cannot beat the incumbent when it is generated is
+	 * pruned without being built.
+	 */
+	private class ChildGenerator implements SubTaskGenerator<N> {
+
+		private List<String> childIds;
+		private List<N> children;
+
+		private ChildGenerator(List<N> children) {
+			this.childIds = getChildIds();
+			this.children = children;
+		}
+
+		@Override
+		public int size() {
+			return children.size();
+		}
+
+		@Override
+		public String getChildId(int index) {
+			return childIds.get(index);
+		}
+
+		@Override
+		public Task<N> generate(int index) {
+			N child = children.get(index);
+			if (!getIncumbent().admits(problem.getBound(child))) {
+				return null;
+			}
+			BranchAndBoundTask<N> childTask = new BranchAndBoundTask<N>(
+					problem, child, childIds.get(index), getId());
+			childTask.setComputer(computer);
+			return childTask;
+		}
+	}
+
+	/**
+	 * Keeps the better of two solutions, or the first if both are equally
+	 * good. Only the best solution is kept as solutions arrive.
+	 * 
+	 * @see api.Foldable#fold(java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	public N fold(N accumulated, N value) {
+		if (this.isBetter(problem.getObjective(value), problem
+				.getObjective(accumulated))) {
+			return value;
+		}
+		return accumulated;
+	}
+
+	/**
+	 * A task waiting to decompose is dead once its bound cannot beat the
+	 * latest incumbent
+	 * 
+	 * @see api.Task#isPrunable(system.Shared)
+	 */
+	@Override
+	public boolean isPrunable(Shared<?> shared) {
+		return this.getStatus() == Task.Status.DECOMPOSE
+				&& shared instanceof Incumbent
+				&& !((Incumbent) shared).admits(this.bound);
+	}
+
+	/**
+	 * The node of the task is only needed to decompose it
+	 * 
+	 * @see api.Task#getContinuation()
+	 */
+	@Override
+	public Task<N> getContinuation() {
+		return new BranchAndBoundTask<N>(this);
+	}
+
+	/**
+	 * Tasks split up to a fixed depth while the computer has no advice
+	 * 
+	 * @see tasks.TaskBase#splitsByDefault()
+	 */
+	@Override
+	protected boolean splitsByDefault() {
+		return this.getTaskLevel() < NUMBER_OF_LEVELS;
+	}
+
+	/**
+	 * Number of subtasks created in each stage of recursion
+	 */
+	@Override
+	public int getDecompositionSize() {
+		return problem.getBranchingFactor();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see api.Task#execute()
+	 */
+	@Override
+	public Result<?> execute() {
+		if (this.getStatus() == Task.Status.DECOMPOSE) {
+			return this.decompose();
+		}
+		if (this.getStatus() == Task.Status.COMPOSE) {
+			return this.compose();
+		}
+		return null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see api.Task#putValues(java.util.List)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public void putValues(List<?> values) {
+		this.values = new Vector<N>();
+		for (Object o : values) {
+			this.values.add((N) o);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see api.Task#getValues()
+	 */
+	@Override
+	public List<N> getValues() {
+		return this.values;
+	}
+}
@@ -4,8 +4,9 @@ import java.io.Serializable;
 import java.util.List;
 import java.util.Vector;
 
-import system.ResultImpl;
+import system.IntResult;
 import system.SpaceRunnable;
+import api.IntFoldable;
 import api.Result;
 import api.Task;
 
@@ -15,12 +16,15 @@ import api.Task;
  * @author Manasa Chandrasekhar
  * @author Kowshik Prakasam
  */
-public class FibonacciTask extends TaskBase<Integer> implements Serializable, SpaceRunnable {
+public class FibonacciTask extends TaskBase<Integer> implements Serializable, SpaceRunnable, IntFoldable {
 
 	private static final long serialVersionUID = -9046135328040176063L;
 	private static final int NUMBER_OF_CHILDREN = 2;
 	private int n;
-	private Vector<Integer> values;
+	// Sum of the values of the subtasks
+	private int sum;
+	// Set if the computer that created the task advised it not to split
+	private boolean fineGrained;
 
 	/**
 	 * 
@@ -42,37 +46,97 @@ public class FibonacciTask extends TaskBase<Integer> implements Serializable, Sp
 	 * Implements the decompose phase of fibonacci generation
 	 */
 	private Result<Integer> decompose() {
-		Result<Integer> r = new ResultImpl<Integer>(this.getId(),
-				this.getParentId());
+		IntResult r = new IntResult(this.getId(), this.getParentId());
 		if (n < 2) {
-			r.setValue(n);
+			r.setIntValue(n);
+			return r;
+		}
+		if (!this.shouldSplit()) {
+			r.setIntValue(fibonacci(n));
 			return r;
 		}
 		List<Task<Integer>> subTasks = new Vector<Task<Integer>>();
 		int decrement = 1;
 		for (String id : this.getChildIds()) {
-			subTasks.add(new FibonacciTask(n - decrement,
-					Task.Status.DECOMPOSE, id, this.getId()));
+			FibonacciTask child = new FibonacciTask(n - decrement,
+					Task.Status.DECOMPOSE, id, this.getId());
+			child.setComputer(this.getComputer());
+			child.fineGrained = child.n < 2 || !child.shouldSplit();
+			subTasks.add(child);
 			decrement++;
 		}
 		r.setSubTasks(subTasks);
 		return r;
 	}
 
+	// Same recursion as the distributed computation, on the calling thread
+	private static int fibonacci(int n) {
+		if (n < 2) {
+			return n;
+		}
+		return fibonacci(n - 1) + fibonacci(n - 2);
+	}
+
 	/**
 	 * Implements the conquer phase of fibonacci generation
 	 */
 	private Result<Integer> compose() {
-		Result<Integer> r = new ResultImpl<Integer>(this.getId(),
-				this.getParentId());
-		int sum = 0;
-		for (Integer value : this.getValues()) {
-			sum += value;
-		}
-		r.setValue(sum);
+		IntResult r = new IntResult(this.getId(), this.getParentId());
+		r.setIntValue(this.sum);
 		return r;
 	}
 
+	/**
+	 * The conquer phase only adds two integers
+	 * 
+	 * @see api.Task#hasCheapCompose()
+	 */
+	@Override
+	public boolean hasCheapCompose() {
+		return true;
+	}
+
+	/**
+	 * Values are added up as ints as they arrive
+	 * 
+	 * @see api.IntFoldable#fold(int, int)
+	 */
+	@Override
+	public int fold(int accumulated, int value) {
+		return accumulated + value;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see api.IntFoldable#putIntValue(int)
+	 */
+	@Override
+	public void putIntValue(int folded) {
+		this.sum = folded;
+	}
+
+	/**
+	 * Tasks computing the same Fibonacci number solve the same subproblem
+	 * 
+	 * @see api.Task#getSubproblemKey()
+	 */
+	@Override
+	public Object getSubproblemKey() {
+		return this.n;
+	}
+
+	/**
+	 * A task is fine-grained if the computer that created it advised it to
+	 * compute its value sequentially
+	 * 
+	 * @see api.Task#isFineGrained()
+	 */
+	@Override
+	public boolean isFineGrained() {
+		return this.fineGrained;
+	}
+
 	/**
 	 * Number of subtasks created in each stage of recursion
 	 */
@@ -104,22 +168,22 @@ public class FibonacciTask extends TaskBase<Integer> implements Serializable, Sp
 	 */
 	@Override
 	public void putValues(List<?> values) {
-		this.values = new Vector<Integer>();
+		this.sum = 0;
 		for (Object o : values) {
-			Integer val = (Integer) o;
-			this.values.add(val);
+			this.sum += (Integer) o;
 		}
 
 	}
 
-	/*
-	 * (non-Javadoc)
+	/**
+	 * The values of the subtasks are only kept as their sum
 	 * 
 	 * @see api.Task#getValues()
 	 */
 	@Override
 	public List<Integer> getValues() {
-
+		List<Integer> values = new Vector<Integer>();
+		values.add(this.sum);
 		return values;
 	}
 
@@ -0,0 +1,173 @@
+package tasks;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Vector;
+
+import api.BranchAndBound;
+
+/**
+ * The 0/1 knapsack problem, solved by branch-and-bound ({@link
+ * tasks.BranchAndBoundTask BranchAndBoundTask}): choose items whose total
+ * weight fits in the knapsack so that their total value is as large as
+ * possible.
+ * 
+ * Items are considered in decreasing order of value per unit of weight. A
+ * node has decided which of the first items to take, and has two children:
+ * one that takes the next item and one that leaves it. The bound of a node is
+ * the value of the fractional knapsack over the remaining items.
+ * 
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ * 
+ */
+public class KnapsackProblem implements BranchAndBound<KnapsackProblem.Node> {
+
+	private static final long serialVersionUID = -2618549371470536102L;
+
+	private static final int BRANCHING_FACTOR = 2;
+
+	private double[] weights;
+	private double[] values;
+	private int[] labels;
+	private double capacity;
+
+	/**
+	 * 
+	 * @param weights
+	 *            weights[i] is the weight of item i
+	 * @param values
+	 *            values[i] is the value of item i
+	 * @param capacity
+	 *            Largest total weight the knapsack holds
+	 */
+	public KnapsackProblem(final double[] weights, final double[] values,
+			double capacity) {
+		Integer[] order = new Integer[weights.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer first, Integer second) {
+				return Double.compare(values[second] / weights[second],
+						values[first] / weights[first]);
+			}
+		});
+		this.weights = new double[order.length];
+		this.values = new double[order.length];
+		this.labels = new int[order.length];
+		for (int i = 0; i < order.length; i++) {
+			this.weights[i] = weights[order[i]];
+			this.values[i] = values[order[i]];
+			this.labels[i] = order[i];
+		}
+		this.capacity = capacity;
+	}
+
+	/**
+	 * 
+	 * @return Root of the search tree, which has not taken any item
+	 */
+	public Node getRoot() {
+		return new Node(0, 0, 0, new int[0]);
+	}
+
+	@Override
+	public boolean isMinimization() {
+		return false;
+	}
+
+	@Override
+	public int getBranchingFactor() {
+		return BRANCHING_FACTOR;
+	}
+
+	@Override
+	public List<Node> expand(Node node) {
+		List<Node> children = new Vector<Node>();
+		int next = node.level;
+		if (node.weight + weights[next] <= capacity) {
+			int[] items = Arrays.copyOf(node.items, node.items.length + 1);
+			items[node.items.length] = labels[next];
+			children.add(new Node(next + 1, node.weight + weights[next],
+					node.value + values[next], items));
+		}
+		children.add(new Node(next + 1, node.weight, node.value, node.items));
+		return children;
+	}
+
+	@Override
+	public double getBound(Node node) {
+		double bound = node.value;
+		double room = capacity - node.weight;
+		for (int i = node.level; i < weights.length && room > 0; i++) {
+			if (weights[i] <= room) {
+				bound += values[i];
+				room -= weights[i];
+			} else {
+				bound += values[i] * room / weights[i];
+				room = 0;
+			}
+		}
+		return bound;
+	}
+
+	@Override
+	public boolean isComplete(Node node) {
+		return node.level == weights.length;
+	}
+
+	@Override
+	public double getObjective(Node node) {
+		return node.value;
+	}
+
+	/**
+	 * A node of the search tree: the items taken out of the first items
+	 * considered
+	 */
+	public static final class Node implements Serializable {
+
+		private static final long serialVersionUID = 6307451835927391120L;
+
+		private int level;
+		private double weight;
+		private double value;
+		private int[] items;
+
+		private Node(int level, double weight, double value, int[] items) {
+			this.level = level;
+			this.weight = weight;
+			this.value = value;
+			this.items = items;
+		}
+
+		/**
+		 * 
+		 * @return Indices of the items taken, in the order they were
+		 *         considered
+		 */
+		public int[] getItems() {
+			return items.clone();
+		}
+
+		/**
+		 * 
+		 * @return Total weight of the items taken
+		 */
+		public double getWeight() {
+			return weight;
+		}
+
+		/**
+		 * 
+		 * @return Total value of the items taken
+		 */
+		public double getValue() {
+			return value;
+		}
+	}
+}
@@ -6,6 +6,7 @@ import java.util.Vector;
 
 import system.ResultImpl;
 import system.SpaceRunnable;
+import api.Foldable;
 import api.Result;
 import api.Task;
 
@@ -19,7 +20,8 @@ import api.Task;
 
 public class MandelbrotSetTask extends
 		TaskBase<MandelbrotSetTask.MandelbrotSetTaskResult> implements
-		Serializable, SpaceRunnable {
+		Serializable, SpaceRunnable,
+		Foldable<MandelbrotSetTask.MandelbrotSetTaskResult> {
 
 	/**
 	 * Represents the result of Mandelbrot Set computation
@@ -66,6 +68,24 @@ public class MandelbrotSetTask extends
 		}
 	}
 
+	/**
+	 * Image of the whole square of a task, into which the chunks computed by
+	 * its subtasks are copied as they arrive. It has the layout of a chunk
+	 * located at the corner of the square.
+	 * 
+	 * @author Manasa Chandrasekhar
+	 * @author Kowshik Prakasam
+	 * 
+	 */
+	public class MandelbrotSetImage extends MandelbrotSetTaskResult {
+
+		private static final long serialVersionUID = 4317096205872394153L;
+
+		public MandelbrotSetImage(int n) {
+			super(0, 0, new int[n][n]);
+		}
+	}
+
 	private static final long serialVersionUID = -2438392380951095822L;
 	private static final int NUM_OF_CHILDREN = 16;
 	private static final int MANDELBROT_LIMIT = 2;
@@ -127,7 +147,16 @@ public class MandelbrotSetTask extends
 	public Result<MandelbrotSetTaskResult> decompose() {
 		Result<MandelbrotSetTaskResult> r = new ResultImpl<MandelbrotSetTaskResult>(
 				this.getId(), this.getParentId());
-		if (this.getId().equals(DEFAULT_TASK_ID)) {
+		if (this.isRoot() && !this.shouldSplit()) {
+			// The whole set is computed as a single chunk
+			MandelbrotSetTask wholeSet = new MandelbrotSetTask(lowerX, lowerY,
+					edgeLength / n, n, iterLimit, 0, 0, Task.Status.DECOMPOSE,
+					this.getId(), this.getParentId());
+			this.values = new Vector<MandelbrotSetTaskResult>();
+			this.values.add(wholeSet.computeMandelbrotSet());
+			return this.compose();
+		}
+		if (this.isRoot()) {
 			List<Task<MandelbrotSetTaskResult>> subTasks = this
 					.chopMandelbrotTask();
 			r.setSubTasks(subTasks);
@@ -231,6 +260,49 @@ public class MandelbrotSetTask extends
 
 	}
 
+	/**
+	 * A chunk is identified by the square of the complex plane it covers, its
+	 * resolution and its location in the image
+	 * 
+	 * @see api.Task#getSubproblemKey()
+	 */
+	@Override
+	public Object getSubproblemKey() {
+		return lowerX + "," + lowerY + "," + edgeLength + "," + n + ","
+				+ iterLimit + "@" + chunkLocationX + "," + chunkLocationY;
+	}
+
+	/**
+	 * Copies chunks into an image of the whole square of this task
+	 * ({@link MandelbrotSetImage}) as they arrive. Composing the image then
+	 * gives the same result as composing the chunks.
+	 * 
+	 * @see api.Foldable#fold(java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	public MandelbrotSetTaskResult fold(MandelbrotSetTaskResult accumulated,
+			MandelbrotSetTaskResult value) {
+		MandelbrotSetTaskResult image = accumulated;
+		if (!(accumulated instanceof MandelbrotSetImage)) {
+			// The first chunk that arrived
+			image = new MandelbrotSetImage(n);
+			this.copyChunk(accumulated, image);
+		}
+		this.copyChunk(value, image);
+		return image;
+	}
+
+	// Copies a chunk into an image, keeping the layout of the chunk
+	private void copyChunk(MandelbrotSetTaskResult chunk,
+			MandelbrotSetTaskResult image) {
+		int[][] values = chunk.getValues();
+		int[][] imageValues = image.getValues();
+		for (int row = 0; row < values.length; row++) {
+			System.arraycopy(values[row], 0, imageValues[chunk.getX() + row],
+					chunk.getY(), values[row].length);
+		}
+	}
+
 	/**
 	 * Number of subtasks created in each stage of recursion
 	 */
@@ -15,7 +15,8 @@ import api.Task;
  * @author Manasa Chandrasekhar
  * @author Kowshik Prakasam
  */
-public abstract class TaskBase<T> implements Task<T>, Serializable {
+public abstract class TaskBase<T> implements Task<T>, Serializable,
+		Cloneable {
 
 	private static final long serialVersionUID = -139155829609653917L;
 
@@ -24,7 +25,8 @@ public abstract class TaskBase<T> implements Task<T>, Serializable {
 	private String parentId;
 	private String taskId;
 	private long startTime;
-	protected Computer computer;
+	protected transient Computer computer;
+	private Computer parentHost;
 
 	protected static final String ID_DELIM = "-";
 	protected static final int DEFAULT_TASK_LEVEL = 0;
@@ -71,21 +73,53 @@ public abstract class TaskBase<T> implements Task<T>, Serializable {
 		this.taskId = taskId;
 	}
 
+	/**
+	 * IDs are made up of the level and the child number, followed by the
+	 * namespace of the root task, if it has one. Roots of a stream of tasks
+	 * have namespaces of their own, so that the trees of two roots never
+	 * share IDs, even if their tasks decompose into different numbers of
+	 * subtasks. Tasks handed over by a running task have namespaces of their
+	 * own as well ({@link #getDonatedIds(int)}).
+	 * 
+	 * @see api.Task#getChildIds()
+	 */
 	@Override
 	public List<String> getChildIds() {
-		String[] parts = this.getId().split(ID_DELIM);
+		String[] parts = this.getId().split(ID_DELIM, 3);
 		int newLevel = Integer.parseInt(parts[0]) + 1;
+		String namespace = (parts.length > 2) ? ID_DELIM + parts[2] : "";
 		List<String> ids = new Vector<String>();
 		int childBase = Integer.parseInt(parts[1])
 				* this.getDecompositionSize();
 		for (int childNumber = childBase; childNumber < childBase
 				+ this.getDecompositionSize(); childNumber++) {
-			String childId = newLevel + ID_DELIM + childNumber;
+			String childId = newLevel + ID_DELIM + childNumber + namespace;
 			ids.add(childId);
 		}
 		return ids;
 	}
 
+	/**
+	 * Used by a running task that hands over parts of its work as new tasks,
+	 * whose number and decomposition sizes need not match those of the other
+	 * tasks on the next level. Their IDs are in a namespace named after this
+	 * task, so that neither they nor their subtasks ever share IDs with the
+	 * children of other tasks ({@link #getChildIds()}).
+	 * 
+	 * @param count
+	 *            Number of tasks handed over
+	 * @return IDs of the tasks handed over
+	 */
+	protected List<String> getDonatedIds(int count) {
+		int newLevel = this.getTaskLevel() + 1;
+		List<String> ids = new Vector<String>();
+		for (int childNumber = 0; childNumber < count; childNumber++) {
+			ids.add(newLevel + ID_DELIM + childNumber + ID_DELIM
+					+ this.getId());
+		}
+		return ids;
+	}
+
 	public void setStartTime(long startTime) {
 		this.startTime = startTime;
 	}
@@ -100,6 +134,15 @@ public abstract class TaskBase<T> implements Task<T>, Serializable {
 		this.setParentId(parentId);
 	}
 
+	/**
+	 * 
+	 * @return true if this task is the root of a computation, whether it was
+	 *         computed on its own or streamed along with other roots
+	 */
+	protected boolean isRoot() {
+		return this.getId().equals(this.getParentId());
+	}
+
 	protected int getTaskLevel() {
 		String[] parts = this.getId().split(ID_DELIM);
 		int level = Integer.parseInt(parts[0]);
@@ -126,6 +169,122 @@ public abstract class TaskBase<T> implements Task<T>, Serializable {
 		return this.computer;
 	}
 
+	/**
+	 * Conquer phases are dispatched to computers unless a task declares
+	 * otherwise
+	 * 
+	 * @see api.Task#hasCheapCompose()
+	 */
+	@Override
+	public boolean hasCheapCompose() {
+		return false;
+	}
+
+	/**
+	 * Tasks are dispatched on their own unless a task declares otherwise
+	 * 
+	 * @see api.Task#isFineGrained()
+	 */
+	@Override
+	public boolean isFineGrained() {
+		return false;
+	}
+
+	/**
+	 * Follows the advice of the computer executing the task, or
+	 * {@link #splitsByDefault()} as long as the computer has none
+	 * 
+	 * @see api.Task#shouldSplit()
+	 */
+	@Override
+	public boolean shouldSplit() {
+		if (computer != null) {
+			try {
+				Boolean split = computer.adviseSplit(this);
+				if (split != null) {
+					return split;
+				}
+			} catch (RemoteException e) {
+				e.printStackTrace();
+			}
+		}
+		return this.splitsByDefault();
+	}
+
+	/**
+	 * Asks the computer executing the task for idle capacity
+	 * 
+	 * @see api.Task#shouldDonate()
+	 */
+	@Override
+	public boolean shouldDonate() {
+		if (computer == null) {
+			return false;
+		}
+		try {
+			return computer.hasIdleCapacity();
+		} catch (RemoteException e) {
+			e.printStackTrace();
+		}
+		return false;
+	}
+
+	/**
+	 * Tasks are kept whole unless they declare otherwise. The continuation is
+	 * a shallow copy, since values put into it must not change the task that
+	 * was dispatched.
+	 * 
+	 * @see api.Task#getContinuation()
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public Task<T> getContinuation() {
+		try {
+			return (Task<T>) super.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new InternalError(e.getMessage());
+		}
+	}
+
+	/**
+	 * Tasks are not matched with others unless they declare otherwise
+	 * 
+	 * @see api.Task#getSubproblemKey()
+	 */
+	@Override
+	public Object getSubproblemKey() {
+		return null;
+	}
+
+	/**
+	 * Tasks are never discarded unless they declare otherwise
+	 * 
+	 * @see api.Task#isPrunable(system.Shared)
+	 */
+	@Override
+	public boolean isPrunable(Shared<?> shared) {
+		return false;
+	}
+
+	/**
+	 * 
+	 * @return true if the task should split while the computer has no advice
+	 *         for tasks of its type. Tasks split unless they declare otherwise.
+	 */
+	protected boolean splitsByDefault() {
+		return true;
+	}
+
+	@Override
+	public void setParentHost(Computer parentHost) {
+		this.parentHost = parentHost;
+	}
+
+	@Override
+	public Computer getParentHost() {
+		return this.parentHost;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -7,12 +7,15 @@ import java.util.List;
 import java.util.Stack;
 import java.util.Vector;
 
+import system.Incumbent;
 import system.LowerBound;
 import system.ResultImpl;
 import system.Shared;
 import system.SpaceRunnable;
 import system.TspShared;
+import api.Foldable;
 import api.Result;
+import api.SubTaskGenerator;
 import api.Task;
 
 /**
@@ -24,7 +27,7 @@ import api.Task;
  * @author Kowshik Prakasam
  */
 public class TspTask extends TaskBase<List<TspTask.City>> implements
-		Serializable, SpaceRunnable {
+		Serializable, SpaceRunnable, Foldable<List<TspTask.City>> {
 
 	/**
 	 * Represents a city in the travelling salesman problem by defining its
@@ -106,15 +109,28 @@ public class TspTask extends TaskBase<List<TspTask.City>> implements
 	private static final long serialVersionUID = 3276207466199157936L;
 	private List<City> citiesList;
 	private Vector<City> currentRoute;
+	// Number of cities on the route, including the start city of this task
+	private int routeLength;
 	private City startCity;
 	private int numberOfChildren;
 	private double lowerBound;
 	private LowerBound lowerBoundDataStructure;
 	private List<List<City>> values;
+	// Unexplored routes, if the search of another task was split
+	private List<List<City>> frontier;
+	private List<LowerBound> frontierBounds;
+	// Shortest route found before the search was split
+	private List<City> bestRoute;
 
-	// Permissible recursion level beyond which the problem is solved locally
+	/*
+	 * Recursion level beyond which the problem is solved locally, until the
+	 * granularity controller of the computer has measured the tasks
+	 */
 	private static final int NUMBER_OF_LEVELS = 5;
 
+	// Time (in milliseconds) between two checks for idle capacity in a search
+	private static final long DONATION_INTERVAL = 100;
+
 	/**
 	 * @param cities
 	 *            Represents the x and y coordinates of cities. cities[i][0] is
@@ -133,6 +149,7 @@ public class TspTask extends TaskBase<List<TspTask.City>> implements
 		this.startCity = new City(0, cities[0][0], cities[0][1]);
 		this.currentRoute = new Vector<City>();
 		this.currentRoute.add(this.startCity);
+		this.routeLength = this.currentRoute.size();
 		this.numberOfChildren = citiesList.size() - 1;
 		this.lowerBound = 0.0f;
 		this.lowerBoundDataStructure = new LowerBound(citiesList);
@@ -156,34 +173,79 @@ public class TspTask extends TaskBase<List<TspTask.City>> implements
 	 *            Id of the parent task
 	 * @param s
 	 *            {@link api.Task.Status Status of a task}
-	 * @param lowerBound
-	 *            The computed value of the lower bound of the parent node which
-	 *            will be passed to the child tasks
+	 * @param lowerBoundDataStructure
+	 *            The lower-bound of the child task, computed by its parent
+	 *            from the parent's lower-bound
 	 * 
 	 */
 
 	private TspTask(City startCity, List<City> route, List<City> citiesList,
-			String taskId, String parentId, Task.Status s, double lowerBound,
-			LowerBound parentLBDataStructure) {
+			String taskId, String parentId, Task.Status s,
+			LowerBound lowerBoundDataStructure) {
 		super(taskId, parentId, Task.Status.DECOMPOSE,
 				Task.QueuingStatus.NOT_QUEUED, System.currentTimeMillis());
 
 		this.citiesList = citiesList;
 		this.startCity = startCity;
 		this.currentRoute = new Vector<City>(route);
-		this.lowerBoundDataStructure = (LowerBound) parentLBDataStructure
-				.clone();
-		
-		this.lowerBoundDataStructure = computeLowerBound(
-				this.lowerBoundDataStructure, this.currentRoute.lastElement(),
-				this.startCity);
-	
+		this.lowerBoundDataStructure = lowerBoundDataStructure;
 		this.lowerBound = this.lowerBoundDataStructure.getLowerBoundValue();
 		this.currentRoute.add(this.startCity);
+		this.routeLength = this.currentRoute.size();
 		this.numberOfChildren = citiesList.size();
 
 	}
 
+	/**
+	 * This constructor is used by a running search to hand over a part of its
+	 * unexplored routes. The new task searches the same cities as the task
+	 * whose search was split, and its value is a route starting at the same
+	 * city.
+	 * 
+	 * @param searched
+	 *            Task whose search was split
+	 * @param taskId
+	 *            Id of the new task
+	 * @param frontier
+	 *            Unexplored routes handed over to the new task
+	 * @param frontierBounds
+	 *            Lower-bounds of the parents of the unexplored routes
+	 * @param bestRoute
+	 *            Shortest route found so far, or null
+	 */
+	private TspTask(TspTask searched, String taskId, List<List<City>> frontier,
+			List<LowerBound> frontierBounds, List<City> bestRoute) {
+		super(taskId, searched.getId(), Task.Status.DECOMPOSE,
+				Task.QueuingStatus.NOT_QUEUED, System.currentTimeMillis());
+		this.citiesList = searched.citiesList;
+		this.startCity = searched.startCity;
+		this.currentRoute = searched.currentRoute;
+		this.routeLength = searched.routeLength;
+		this.lowerBoundDataStructure = searched.lowerBoundDataStructure;
+		this.lowerBound = searched.lowerBound;
+		this.numberOfChildren = searched.numberOfChildren;
+		this.frontier = new Vector<List<City>>(frontier);
+		this.frontierBounds = new Vector<LowerBound>(frontierBounds);
+		this.bestRoute = bestRoute;
+	}
+
+	/**
+	 * This constructor is used to build the continuation of a task waiting
+	 * for the routes of its children. It holds only the start city and the
+	 * length of the route, which is all that the compose phase needs.
+	 * 
+	 * @param waiting
+	 *            Task waiting for the routes of its children
+	 */
+	private TspTask(TspTask waiting) {
+		super(waiting.getId(), waiting.getParentId(), waiting.getStatus(),
+				waiting.getQueuingStatus(), waiting.getStartTime());
+		this.setParentHost(waiting.getParentHost());
+		this.startCity = waiting.startCity;
+		this.routeLength = waiting.routeLength;
+		this.numberOfChildren = waiting.numberOfChildren;
+	}
+
 	/**
 	 * 
 	 * @return The lowerBound for every new child task is calculated and
@@ -230,53 +292,21 @@ public class TspTask extends TaskBase<List<TspTask.City>> implements
 				this.getParentId());
 		try {
 			// Get the shared object from the computer
-			TspShared compShared = (TspShared) this.computer.getShared();
+			Incumbent compShared = (Incumbent) this.computer.getShared();
 			// System.out.println("Got shared object");
 			// Is lower-bound greater than upper-bound ?
-			if (compShared != null
-					&& (compShared.get().equals(TspShared.INFINITY) || lowerBound <= compShared
-							.get())) {
+			if (compShared != null && compShared.admits(lowerBound)) {
 
 				/*
-				 * Has the decomposition hit the permissible depth of recursion
-				 * ?
+				 * Is the remaining problem large enough to be split further ?
 				 */
-				if (this.currentRoute.size() < NUMBER_OF_LEVELS) {
-					List<Task<List<City>>> subTasks = new Vector<Task<List<City>>>();
-					List<String> childIds = this.getChildIds();
-					int childIndex = 0;
-					// System.out.println("Children for level"+
-					// currentRoute.size() + ": " + childIds);
-
+				if (this.frontier == null && !this.citiesList.isEmpty()
+						&& this.shouldSplit()) {
 					/*
-					 * Find child cities for next level of decomposition and
-					 * create subtasks
+					 * Child tasks are built only when they are about to be
+					 * executed, by which time many of them can be pruned
 					 */
-					for (int i = 0; i < citiesList.size(); i++) {
-						if (!citiesList.get(i).equals(this.startCity)) {
-							City newStartCity = citiesList.get(i);
-							String childId = childIds.get(childIndex);
-							childIndex++;
-							List<City> childCities = new Vector<City>();
-							for (int j = 0; j < citiesList.size(); j++) {
-								if (!citiesList.get(j).equals(this.startCity)
-										&& !citiesList.get(j).equals(
-												newStartCity)) {
-									childCities.add(citiesList.get(j));
-								}
-							}
-							TspTask childTask = new TspTask(newStartCity,
-									this.currentRoute, childCities, childId,
-									this.getId(), Task.Status.DECOMPOSE,
-									lowerBound, lowerBoundDataStructure);
-							childTask.setComputer(computer);
-							subTasks.add(childTask);
-							// System.out.println("Added subtask " + childId +
-							// " to the Result Sink");
-						}
-					}
-
-					r.setSubTasks(subTasks);
+					r.setSubTaskGenerator(new ChildGenerator());
 					return r;
 				}
 
@@ -284,7 +314,7 @@ public class TspTask extends TaskBase<List<TspTask.City>> implements
 				 * If max recursion depth has been reached, then find the
 				 * minimum-cost route among remaining cities locally
 				 */
-				r.setValue(findMinRoute());
+				this.findMinRoute(r);
 				return r;
 			}
 			/*
@@ -320,6 +350,40 @@ public class TspTask extends TaskBase<List<TspTask.City>> implements
 		return this.numberOfChildren;
 	}
 
+	/**
+	 * The conquer phase only picks the shortest of the routes returned by the
+	 * children
+	 * 
+	 * @see api.Task#hasCheapCompose()
+	 */
+	@Override
+	public boolean hasCheapCompose() {
+		return true;
+	}
+
+	/**
+	 * Splits down to the permissible depth of recursion
+	 * 
+	 * @see tasks.TaskBase#splitsByDefault()
+	 */
+	@Override
+	protected boolean splitsByDefault() {
+		return this.routeLength < NUMBER_OF_LEVELS;
+	}
+
+	/**
+	 * Tasks above the permissible depth of recursion only create subtasks or
+	 * prune their route. Only the tasks at the last level, and the parts of
+	 * split searches, search permutations.
+	 * 
+	 * @see api.Task#isFineGrained()
+	 */
+	@Override
+	public boolean isFineGrained() {
+		return this.frontier == null
+				&& this.routeLength < NUMBER_OF_LEVELS;
+	}
+
 	/**
 	 * Implements the conquer phase of TSP divide and conquer solution.
 	 * 
@@ -347,25 +411,17 @@ public class TspTask extends TaskBase<List<TspTask.City>> implements
 		if (minRoutes != null) {
 			List<City> chosenMinRoute = null;
 			double minLength = Double.MAX_VALUE;
-			int level = this.getTaskLevel();
 			for (List<City> route : minRoutes) {
 				if (route != null) {
-					City routeStartCity = route.get(0);
-
-					double thisLength = findRouteLength(route)
-							+ findLength(this.startCity, routeStartCity);
-					if (level == DEFAULT_TASK_LEVEL) {
-						City routeEndCity = route.get(route.size() - 1);
-						thisLength += findLength(this.startCity, routeEndCity);
-					}
-
+					double thisLength = this.findLengthFromStart(route);
 					if (thisLength < minLength) {
 						minLength = thisLength;
 						chosenMinRoute = route;
 					}
 				}
 			}
-			if (chosenMinRoute != null) {
+			if (chosenMinRoute != null
+					&& !chosenMinRoute.get(0).equals(this.startCity)) {
 				chosenMinRoute.add(0, this.startCity);
 			}
 			r.setValue(chosenMinRoute);
@@ -376,6 +432,44 @@ public class TspTask extends TaskBase<List<TspTask.City>> implements
 		}
 	}
 
+	/**
+	 * 
+	 * @param route
+	 *            Route returned by a child task
+	 * @return Length of the route once it is extended to start at the start
+	 *         city of this task, closing the tour if this task is the root
+	 */
+	private double findLengthFromStart(List<City> route) {
+		City routeStartCity = route.get(0);
+		double length = findRouteLength(route);
+		// Routes of a split search already start at this city
+		if (!routeStartCity.equals(this.startCity)) {
+			length += findLength(this.startCity, routeStartCity);
+		}
+		// Tasks whose search was split have the route of the root task
+		if (this.routeLength == 1) {
+			City routeEndCity = route.get(route.size() - 1);
+			length += findLength(this.startCity, routeEndCity);
+		}
+		return length;
+	}
+
+	/**
+	 * Keeps the shorter of two routes, or the first if both are equally
+	 * long, just as the compose phase does. Only the shortest route is kept as
+	 * routes arrive.
+	 * 
+	 * @see api.Foldable#fold(java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	public List<City> fold(List<City> accumulated, List<City> value) {
+		if (this.findLengthFromStart(value) < this
+				.findLengthFromStart(accumulated)) {
+			return value;
+		}
+		return accumulated;
+	}
+
 	/**
 	 * 
 	 * @param aListOfCities
@@ -394,26 +488,47 @@ public class TspTask extends TaskBase<List<TspTask.City>> implements
 	}
 
 	/**
-	 * Returns the minimum-cost route among cities in this sub-task using a
+	 * Finds the minimum-cost route among cities in this sub-task using a
 	 * depth-first search algorithm. Each new minimum-cost is propagated to the
 	 * compute space.
 	 * 
-	 * @return
+	 * The search periodically checks for idle capacity. If there is some, it
+	 * stops and splits its unexplored routes between two new tasks, which are
+	 * returned as subtasks. The larger subtrees at the bottom of the stack go
+	 * to the first task, and the second task carries on where the search
+	 * stopped.
+	 * 
+	 * @param r
+	 *            Result receiving the minimum-cost route, or the subtasks
 	 */
-
-	private List<City> findMinRoute() {
+	private void findMinRoute(Result<List<City>> r) {
 		// Stack for DFS
 		Stack<List<City>> routeStack = new Stack<List<City>>();
 		Stack<LowerBound> lbStack = new Stack<LowerBound>();
-		List<City> firstNewRoute = new Vector<City>();
-		List<City> minRoute = null;
-		firstNewRoute.add(this.startCity);
-		routeStack.add(firstNewRoute);
-		lbStack.add(this.lowerBoundDataStructure);
+		List<City> minRoute = this.bestRoute;
+		if (this.frontier != null) {
+			routeStack.addAll(this.frontier);
+			lbStack.addAll(this.frontierBounds);
+		} else {
+			List<City> firstNewRoute = new Vector<City>();
+			firstNewRoute.add(this.startCity);
+			routeStack.add(firstNewRoute);
+			lbStack.add(this.lowerBoundDataStructure);
+		}
+		long nextCheck = System.currentTimeMillis() + DONATION_INTERVAL;
 		try {
 
 			// Perform DFS until stack is not empty
 			while (!routeStack.isEmpty()) {
+				if (System.currentTimeMillis() >= nextCheck) {
+					nextCheck = System.currentTimeMillis() + DONATION_INTERVAL;
+					if (routeStack.size() > 1 && this.numberOfChildren > 1
+							&& this.shouldDonate()) {
+						r.setSubTasks(this.splitSearch(routeStack, lbStack,
+								minRoute));
+						return;
+					}
+				}
 				List<City> thisNewRoute = routeStack.pop();
 				LowerBound existingLowerBound = lbStack.pop();
 				List<City> kids = this.getKids(thisNewRoute);
@@ -427,9 +542,8 @@ public class TspTask extends TaskBase<List<TspTask.City>> implements
 				LowerBound newLowerBound = computeLowerBound(
 						existingLowerBound, wholeRoute);
 				
-				if (this.getLatestUpperBound() == TspShared.INFINITY
-						|| (newLowerBound.getLowerBoundValue() <= this
-								.getLatestUpperBound())) {
+				if (this.getLatestIncumbent().admits(
+						newLowerBound.getLowerBoundValue())) {
 
 					// Leaf node
 					if (kids.size() == 0) {
@@ -437,7 +551,8 @@ public class TspTask extends TaskBase<List<TspTask.City>> implements
 						City firstCity = wholeRoute.get(0);
 						double newUpperBound = findRouteLength(wholeRoute)
 								+ findLength(lastCity, firstCity);
-						Shared<Double> newShared = new TspShared(newUpperBound);
+						Shared<Double> newShared = new TspShared(newUpperBound,
+								new Vector<City>(wholeRoute));
 						if (this.getComputer().broadcast(newShared)) {
 
 							minRoute = thisNewRoute;
@@ -458,18 +573,135 @@ public class TspTask extends TaskBase<List<TspTask.City>> implements
 		} catch (RemoteException e) {
 			e.printStackTrace();
 		}
-		return minRoute;
+		r.setValue(minRoute);
+	}
+
+	// Splits the unexplored routes of a search between two new tasks
+	private List<Task<List<City>>> splitSearch(List<List<City>> routeStack,
+			List<LowerBound> lbStack, List<City> minRoute) {
+		int half = routeStack.size() / 2;
+		List<String> childIds = this.getDonatedIds(2);
+		TspTask donated = new TspTask(this, childIds.get(0), routeStack
+				.subList(0, half), lbStack.subList(0, half), null);
+		TspTask continued = new TspTask(this, childIds.get(1), routeStack
+				.subList(half, routeStack.size()), lbStack.subList(half,
+				lbStack.size()), minRoute);
+		List<Task<List<City>>> subTasks = new Vector<Task<List<City>>>();
+		subTasks.add(donated);
+		subTasks.add(continued);
+		for (Task<List<City>> t : subTasks) {
+			t.setComputer(computer);
+		}
+		return subTasks;
+	}
+
+	/**
+	 * Generates the child tasks of this task, one for each remaining city. A
+	 * child whose lower-bound already exceeds the latest upper-bound when it
+	 * is generated is pruned without being built.
+	 */
+	private class ChildGenerator implements SubTaskGenerator<List<City>> {
+
+		private List<String> childIds;
+		private List<City> childStartCities;
+
+		private ChildGenerator() {
+			this.childIds = getChildIds();
+			this.childStartCities = new Vector<City>();
+			for (City c : citiesList) {
+				if (!c.equals(startCity)) {
+					childStartCities.add(c);
+				}
+			}
+		}
+
+		@Override
+		public int size() {
+			return childStartCities.size();
+		}
+
+		@Override
+		public String getChildId(int index) {
+			return childIds.get(index);
+		}
+
+		@Override
+		public Task<List<City>> generate(int index) {
+			City newStartCity = childStartCities.get(index);
+			LowerBound childLowerBound = computeLowerBound(
+					lowerBoundDataStructure, currentRoute.lastElement(),
+					newStartCity);
+			if (!getLatestIncumbent().admits(
+					childLowerBound.getLowerBoundValue())) {
+				return null;
+			}
+			List<City> childCities = new Vector<City>();
+			for (City c : citiesList) {
+				if (!c.equals(startCity) && !c.equals(newStartCity)) {
+					childCities.add(c);
+				}
+			}
+			TspTask childTask = new TspTask(newStartCity, currentRoute,
+					childCities, childIds.get(index), getId(),
+					Task.Status.DECOMPOSE, childLowerBound);
+			childTask.setComputer(computer);
+			return childTask;
+		}
+	}
+
+	/**
+	 * The optimal tour only depends on the cities, so the root task is
+	 * identified by their coordinates. The values of other tasks depend on the
+	 * upper-bound found so far, and are never matched.
+	 * 
+	 * @see api.Task#getSubproblemKey()
+	 */
+	@Override
+	public Object getSubproblemKey() {
+		if (!this.isRoot() || this.frontier != null
+				|| this.citiesList == null) {
+			return null;
+		}
+		StringBuilder key = new StringBuilder();
+		for (City c : this.citiesList) {
+			key.append(c.getX()).append(',').append(c.getY()).append(';');
+		}
+		return key.toString();
+	}
+
+	/**
+	 * A task waiting to decompose is dead once its lower-bound exceeds the
+	 * latest upper-bound, the same test it applies when it starts decomposing
+	 * 
+	 * @see api.Task#isPrunable(system.Shared)
+	 */
+	@Override
+	public boolean isPrunable(Shared<?> shared) {
+		return this.getStatus() == Task.Status.DECOMPOSE
+				&& shared instanceof Incumbent
+				&& !((Incumbent) shared).admits(this.lowerBound);
+	}
+
+	/**
+	 * The city list, route and lower-bound of the task are only needed to
+	 * decompose it
+	 * 
+	 * @see api.Task#getContinuation()
+	 */
+	@Override
+	public Task<List<City>> getContinuation() {
+		return new TspTask(this);
 	}
 
-	// Returns the current upper-bound value from the computer's shared object
-	private double getLatestUpperBound() {
+	// Returns the current upper-bound from the computer's shared object
+	private Incumbent getLatestIncumbent() {
 		try {
-			TspShared sharedObj = (TspShared) (this.getShared());
-			return sharedObj.get();
+			return (Incumbent) (this.getShared());
 		} catch (RemoteException e) {
 			e.printStackTrace();
 		}
-		return 0;
+		// Prunes everything, as an upper-bound of 0 would
+		return new TspShared(TspShared.INFINITY).close();
 
 	}
 
@@ -0,0 +1,236 @@
+package system;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Vector;
+
+import tasks.FibonacciTask;
+import api.Result;
+import api.Task;
+
+/**
+ * Checks that a computation recovered from a journal ({@link SpaceCheckpoint})
+ * resumes with the same values as if the compute space had not restarted. A
+ * Fibonacci number is computed from {@link IntResult IntResult} values, with
+ * its leaves dispatched in bundles ({@link TaskBundle TaskBundle}), and the
+ * space restarts after every record of the journal, recovering either from
+ * the start of the job or from a snapshot taken before the restart.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ *
+ */
+public class RecoveryTest {
+
+	private static final int N = 11;
+	private static final int FIBONACCI = 89;
+	private static final int BUNDLE_SIZE = 4;
+	private static final int SNAPSHOT_INTERVAL = 25;
+
+	public static void main(String[] args) throws Exception {
+		checkRestarts(1);
+		checkRestarts(2);
+		System.out.println("RecoveryTest -> OK");
+	}
+
+	private static void checkRestarts(long seed) throws Exception {
+		FibonacciTask root = new FibonacciTask(N);
+		byte[] job = serialize(root);
+		Run run = new Run(seed);
+		run.start((Task<?>) deserialize(job));
+		Map<Integer, byte[]> snapshots = new LinkedHashMap<Integer, byte[]>();
+		while (run.answer == null) {
+			if (run.records.size() % SNAPSHOT_INTERVAL == 0
+					&& !snapshots.containsKey(run.records.size())) {
+				snapshots.put(run.records.size(), serialize(run.snapshot()));
+			}
+			run.step();
+		}
+		check(run.answer == FIBONACCI, "Computed " + run.answer);
+
+		for (int restart = 0; restart <= run.records.size(); restart++) {
+			// Recovery from the start of the job
+			SpaceCheckpoint checkpoint = new SpaceCheckpoint();
+			checkpoint.startJob((Task<?>) deserialize(job), null);
+			checkResume(checkpoint, run.records, 0, restart, seed);
+			for (Map.Entry<Integer, byte[]> e : snapshots.entrySet()) {
+				if (e.getKey() <= restart) {
+					checkResume((SpaceCheckpoint) deserialize(e.getValue()),
+							run.records, e.getKey(), restart, seed);
+				}
+			}
+		}
+	}
+
+	// Replays the records from the snapshot up to the restart, and resumes
+	private static void checkResume(SpaceCheckpoint checkpoint,
+			List<byte[]> records, int snapshot, int restart, long seed)
+			throws Exception {
+		for (byte[] record : records.subList(snapshot, restart)) {
+			checkpoint.applyResult((Result<?>) deserialize(record));
+		}
+		String context = "restart after record " + restart + " of "
+				+ records.size() + " from snapshot " + snapshot;
+		if (restart == records.size()) {
+			check(!checkpoint.hasJob(), "Job in progress on " + context);
+			return;
+		}
+		check(checkpoint.hasJob(), "No job in progress on " + context);
+		Run run = new Run(seed + restart);
+		run.resume(checkpoint);
+		while (run.answer == null) {
+			check(!run.isStuck(), "Computation stuck on " + context);
+			run.step();
+		}
+		check(run.answer == FIBONACCI, "Computed " + run.answer + " on "
+				+ context);
+	}
+
+	private static byte[] serialize(Object o) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(o);
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	private static Object deserialize(byte[] bytes) throws IOException,
+			ClassNotFoundException {
+		return new ObjectInputStream(new ByteArrayInputStream(bytes))
+				.readObject();
+	}
+
+	private static void check(boolean condition, String message) {
+		if (!condition) {
+			throw new AssertionError(message);
+		}
+	}
+
+	/*
+	 * A compute space with a single computer that executes the dispatched
+	 * tasks in random order, and journals the results it accepts the way
+	 * SpaceImpl.sendResult() does
+	 */
+	private static class Run implements SuccessorHost {
+
+		private Random random;
+		private String rootId;
+		private Map<String, Task<?>> outstanding;
+		private List<Task<?>> ready;
+		private List<Task<?>> dispatched;
+		private Map<String, Successor> successors;
+		private List<byte[]> records;
+		private Integer answer;
+
+		private Run(long seed) {
+			this.random = new Random(seed);
+			this.outstanding = new HashMap<String, Task<?>>();
+			this.ready = new Vector<Task<?>>();
+			this.dispatched = new Vector<Task<?>>();
+			this.successors = new HashMap<String, Successor>();
+			this.records = new Vector<byte[]>();
+		}
+
+		private void start(Task<?> root) {
+			this.rootId = root.getId();
+			this.put(root);
+		}
+
+		private void resume(SpaceCheckpoint checkpoint) {
+			this.rootId = checkpoint.getRootId();
+			for (Successor s : checkpoint.getSuccessors(this)) {
+				successors.put(s.getId(), s);
+			}
+			for (Task<?> task : checkpoint.getPendingTasks()) {
+				task.setQueuingStatus(Task.QueuingStatus.NOT_QUEUED);
+				this.put(task);
+			}
+		}
+
+		private SpaceCheckpoint snapshot() {
+			SpaceCheckpoint checkpoint = new SpaceCheckpoint();
+			checkpoint.setRoot(rootId, FibonacciTask.class.getName());
+			for (Task<?> task : outstanding.values()) {
+				checkpoint.addPendingTask(task);
+			}
+			for (Successor s : successors.values()) {
+				checkpoint.addSuccessor(s);
+			}
+			return checkpoint;
+		}
+
+		private boolean isStuck() {
+			return ready.isEmpty() && dispatched.isEmpty();
+		}
+
+		// Either dispatches a task or a bundle, or accepts a result
+		private void step() throws IOException {
+			if (!ready.isEmpty()
+					&& (dispatched.isEmpty() || random.nextBoolean())) {
+				Task<?> task = ready.remove(random.nextInt(ready.size()));
+				if (task.isFineGrained()) {
+					TaskBundle bundle = new TaskBundle();
+					bundle.add(task);
+					Iterator<Task<?>> i = ready.iterator();
+					while (i.hasNext() && bundle.size() < BUNDLE_SIZE) {
+						Task<?> t = i.next();
+						if (t.isFineGrained()) {
+							i.remove();
+							bundle.add(t);
+						}
+					}
+					task = bundle;
+				}
+				dispatched.add(task);
+				return;
+			}
+			Task<?> task = dispatched.remove(random.nextInt(dispatched.size()));
+			Result<?> result = task.execute();
+			records.add(serialize(result));
+			if (result instanceof BundleResult) {
+				for (Result<?> r : ((BundleResult) result).getResults()) {
+					this.accept(r);
+				}
+			} else {
+				this.accept(result);
+			}
+		}
+
+		private void accept(Result<?> result) {
+			Task<?> t = outstanding.remove(result.getId());
+			if (result.getSubTasks() != null) {
+				successors.put(t.getId(), new Successor(t, this, result
+						.getSubTasks().size()));
+				for (Task<?> task : result.getSubTasks()) {
+					this.put(task);
+				}
+			} else if (t.getId().equals(rootId)) {
+				this.answer = (Integer) result.getValue();
+			} else {
+				successors.get(t.getParentId()).getClosure().putResult(
+						t.getId(), result);
+			}
+		}
+
+		@Override
+		public boolean put(Task<?> aTask) {
+			outstanding.put(aTask.getId(), aTask);
+			ready.add(aTask);
+			return true;
+		}
+
+		@Override
+		public void removeFromWaitQ(Task<?> task) {
+			successors.remove(task.getId());
+		}
+	}
+}
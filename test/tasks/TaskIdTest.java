@@ -0,0 +1,126 @@
+package tasks;
+
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import api.Result;
+import api.Task;
+
+/**
+ * Checks that task IDs stay unique when tasks of the same level split into
+ * different numbers of subtasks. Searches of {@link tasks.TspTask TspTask}
+ * split their work between two new tasks that keep the decomposition size of
+ * the searched task, while the other tasks of the level decompose into one
+ * child per remaining city.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ *
+ */
+public class TaskIdTest {
+
+	private static final int MAX_TASKS = 200000;
+
+	public static void main(String[] args) {
+		checkSplitDecisions(TaskBase.DEFAULT_TASK_ID, 1);
+		checkSplitDecisions(TaskBase.DEFAULT_TASK_ID, 2);
+		// Roots of a stream of tasks
+		checkSplitDecisions("0-0-1", 3);
+		checkDonatedSubtasks();
+		System.out.println("TaskIdTest -> OK");
+	}
+
+	// Builds a tree in which every task randomly splits, donates or stops
+	private static void checkSplitDecisions(String rootId, long seed) {
+		Random random = new Random(seed);
+		Set<String> ids = new HashSet<String>();
+		LinkedList<IdTask> tasks = new LinkedList<IdTask>();
+		IdTask root = new IdTask(rootId, rootId, 12, false);
+		ids.add(root.getId());
+		tasks.add(root);
+		while (!tasks.isEmpty() && ids.size() < MAX_TASKS) {
+			IdTask task = tasks.removeFirst();
+			int decision = random.nextInt(3);
+			List<IdTask> subTasks = new LinkedList<IdTask>();
+			if (decision == 0 && !task.donated && task.size > 1) {
+				for (String id : task.getChildIds()) {
+					subTasks.add(new IdTask(id, task.getId(), task.size - 1,
+							false));
+				}
+			} else if (decision == 1) {
+				for (String id : task.getDonatedIds(2)) {
+					subTasks.add(new IdTask(id, task.getId(), task.size, true));
+				}
+			}
+			for (IdTask t : subTasks) {
+				check(ids.add(t.getId()), "Duplicate ID " + t.getId()
+						+ " under " + rootId);
+				tasks.add(t);
+			}
+		}
+	}
+
+	/*
+	 * A task numbered 8 on level 2 of a 12-city tour donates, and the first
+	 * donated task donates again. Its subtasks on level 4 used to be numbered
+	 * as the children of task 3-81 of the tour.
+	 */
+	private static void checkDonatedSubtasks() {
+		IdTask searched = new IdTask("2-8", "1-0", 9, false);
+		IdTask donated = new IdTask(searched.getDonatedIds(2).get(0),
+				searched.getId(), 9, true);
+		IdTask sibling = new IdTask("3-81", "2-10", 8, false);
+		Set<String> ids = new HashSet<String>(sibling.getChildIds());
+		for (String id : donated.getDonatedIds(2)) {
+			check(ids.add(id), "Donated ID " + id + " clashes with a child of "
+					+ sibling.getId());
+		}
+		check(donated.getTaskLevel() == 3, "Donated task on level "
+				+ donated.getTaskLevel());
+	}
+
+	private static void check(boolean condition, String message) {
+		if (!condition) {
+			throw new AssertionError(message);
+		}
+	}
+
+	// A task that only knows its ID and decomposition size
+	private static class IdTask extends TaskBase<Object> {
+
+		private static final long serialVersionUID = 1L;
+
+		private int size;
+		private boolean donated;
+
+		private IdTask(String taskId, String parentId, int size,
+				boolean donated) {
+			super(taskId, parentId, Task.Status.DECOMPOSE,
+					Task.QueuingStatus.NOT_QUEUED, System.currentTimeMillis());
+			this.size = size;
+			this.donated = donated;
+		}
+
+		@Override
+		public Result<?> execute() {
+			return null;
+		}
+
+		@Override
+		public int getDecompositionSize() {
+			return size;
+		}
+
+		@Override
+		public void putValues(List<?> values) {
+		}
+
+		@Override
+		public List<Object> getValues() {
+			return null;
+		}
+	}
+}